@@ -0,0 +1,30 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+/*
+ * Class Main
+ * Entry point of benchmarks.jar: the JMH command line, with the GC profiler added unless it
+ * was asked for already, so every result reports its allocation rate (gc.alloc.rate.norm is
+ * the bytes allocated per operation).
+ */
+
+public final class Main {
+    private Main() { }
+
+    public static void main(String[] args) throws Exception {
+        if (!profilesGc(args)) {
+            args = Arrays.copyOf(args, args.length + 2);
+            args[args.length - 2] = "-prof";
+            args[args.length - 1] = "gc";
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    private static boolean profilesGc(String[] args) {
+        for (int i = 0; i + 1 < args.length; i++)
+            if (args[i].equals("-prof") && args[i + 1].startsWith("gc"))
+                return true;
+        return false;
+    }
+}
\ No newline at end of file
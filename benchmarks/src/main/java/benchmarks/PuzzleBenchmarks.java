@@ -0,0 +1,248 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Class PuzzleBenchmarks
+ * JMH benchmarks of the Board and Solver hot paths: neighbors(), manhattan(), hamming(),
+ * equals() and twin() over 3x3 and 4x4 boards, and whole Solver runs grouped by optimal depth.
+ * Every corpus is scrambled from the goal by random walks with a fixed seed, so every run
+ * measures the same boards. Each benchmark forks its own JVMs with a fixed heap; run through
+ * Main, the GC profiler reports the bytes allocated per operation next to every time.
+ * JMH generates its code into the package of the benchmark, which cannot be the default
+ * package the solver lives in, and a named package cannot refer to default-package classes;
+ * so boards and solvers are held as Object and reached through MethodHandles in static finals,
+ * which the JIT treats as constants and inlines like direct calls.
+ */
+
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PuzzleBenchmarks {
+    private static final long SEED = 42;
+    // boards of every board benchmark
+    private static final int BOARDS = 64;
+    // scrambling moves of those boards, enough to reach about any board of either size
+    private static final int SCRAMBLE = 200;
+    // boards of every solver benchmark, and the range of optimal depths they are taken from
+    private static final int BOARDS_PER_DEPTH = 8;
+    private static final int DEPTH_GROUP = 10;
+
+    private static final Class<?> BOARD = type("Board");
+    private static final Class<?> SOLVER = type("Solver");
+    private static final Class<?> ENGINE = type("Solver$Engine");
+
+    private static final MethodHandle NEW_BOARD = constructor(BOARD, int[][].class);
+    private static final MethodHandle NEIGHBORS = method(BOARD, "neighbors", Iterable.class);
+    private static final MethodHandle MANHATTAN = method(BOARD, "manhattan", int.class);
+    private static final MethodHandle HAMMING = method(BOARD, "hamming", int.class);
+    private static final MethodHandle TWIN = method(BOARD, "twin", BOARD);
+    private static final MethodHandle NEW_SOLVER = constructor(SOLVER, BOARD, ENGINE);
+    private static final MethodHandle MOVES = method(SOLVER, "moves", int.class);
+
+    @State(Scope.Benchmark)
+    public static class Boards {
+        // (JMH parameters keep their plain names, they are what -p refers to)
+        @Param({ "3", "4" })
+        public int dimension;
+
+        // every board, and an equal board built separately so equals() has no identity shortcut
+        Object[] mBoards = new Object[BOARDS];
+        Object[] mCopies = new Object[BOARDS];
+
+        @Setup
+        public void setup() throws Throwable {
+            Random random = new Random(SEED + dimension);
+            for (int i = 0; i < BOARDS; i++) {
+                int[][] blocks = scramble(dimension, SCRAMBLE, random);
+                mBoards[i] = (Object) NEW_BOARD.invokeExact(blocks);
+                mCopies[i] = (Object) NEW_BOARD.invokeExact(blocks);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Instances {
+        // boards whose optimal solutions take depth to depth + DEPTH_GROUP - 1 moves
+        // (any depth works, but the deepest 3x3 boards take a while to come up in the sampling)
+        @Param({ "3", "4" })
+        public int dimension;
+
+        @Param({ "10", "20" })
+        public int depth;
+
+        @Param({ "ASTAR", "IDA_STAR" })
+        public String engine;
+
+        Object[] mBoards = new Object[BOARDS_PER_DEPTH];
+        Object mEngine;
+        Object mDepthEngine;
+
+        @Setup
+        public void setup() throws Throwable {
+            // random walks a little longer than the group, kept when IDA* puts them in it
+            mEngine = engine(engine);
+            mDepthEngine = engine("IDA_STAR");
+            Random random = new Random(SEED + dimension*1000 + depth);
+            for (int i = 0; i < BOARDS_PER_DEPTH; ) {
+                int[][] blocks = scramble(dimension, depth + random.nextInt(2*DEPTH_GROUP), random);
+                Object board = (Object) NEW_BOARD.invokeExact(blocks);
+                int moves = (int) MOVES.invokeExact((Object) NEW_SOLVER.invokeExact(board, mDepthEngine));
+                if (moves >= depth && moves < depth + DEPTH_GROUP)
+                    mBoards[i++] = board;
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public void neighbors(Boards boards, Blackhole blackhole) throws Throwable {
+        for (Object board : boards.mBoards)
+            for (Object neighbor : (Iterable<?>) NEIGHBORS.invokeExact(board))
+                blackhole.consume(neighbor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public void manhattan(Boards boards, Blackhole blackhole) throws Throwable {
+        for (Object board : boards.mBoards)
+            blackhole.consume((int) MANHATTAN.invokeExact(board));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public void hamming(Boards boards, Blackhole blackhole) throws Throwable {
+        for (Object board : boards.mBoards)
+            blackhole.consume((int) HAMMING.invokeExact(board));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public void equals(Boards boards, Blackhole blackhole) {
+        for (int i = 0; i < BOARDS; i++)
+            blackhole.consume(boards.mBoards[i].equals(boards.mCopies[i]));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BOARDS)
+    public void twin(Boards boards, Blackhole blackhole) throws Throwable {
+        for (Object board : boards.mBoards)
+            blackhole.consume((Object) TWIN.invokeExact(board));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(BOARDS_PER_DEPTH)
+    public void solve(Instances instances, Blackhole blackhole) throws Throwable {
+        for (Object board : instances.mBoards)
+            blackhole.consume((int) MOVES.invokeExact((Object) NEW_SOLVER.invokeExact(board, instances.mEngine)));
+    }
+
+    private static int[][] scramble(int n, int moves, Random random) {
+        // the goal of size n after the given number of random blank moves, none undoing the last
+        int[][] blocks = new int[n][n];
+        for (int cell = 0; cell < n*n; cell++)
+            blocks[cell / n][cell % n] = (cell + 1) % (n*n);
+        int blank = n*n - 1;
+        int previous = -1;
+        int[] targets = new int[4];
+        for (int move = 0; move < moves; move++) {
+            int count = 0;
+            if (blank / n > 0)
+                targets[count++] = blank - n;
+            if (blank % n > 0)
+                targets[count++] = blank - 1;
+            if (blank / n < n-1)
+                targets[count++] = blank + n;
+            if (blank % n < n-1)
+                targets[count++] = blank + 1;
+            int target;
+            do {
+                target = targets[random.nextInt(count)];
+            } while (target == previous);
+            blocks[blank / n][blank % n] = blocks[target / n][target % n];
+            blocks[target / n][target % n] = 0;
+            previous = blank;
+            blank = target;
+        }
+        return blocks;
+    }
+
+    private static Object engine(String name) {
+        for (Object engine : ENGINE.getEnumConstants())
+            if (((Enum<?>) engine).name().equals(name))
+                return engine;
+        throw new java.lang.IllegalArgumentException("unknown engine " + name);
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new java.lang.IllegalStateException("solver classes not on the class path", e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) {
+        // as a handle taking and returning Object for every solver class, so the calls can be exact
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, parameters));
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new java.lang.IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle method(Class<?> type, String name, Class<?> result) {
+        // an instance method without arguments, erased the same way
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findVirtual(type, name, MethodType.methodType(result));
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new java.lang.IllegalStateException(e);
+        }
+    }
+
+    private static MethodType erase(MethodType type) {
+        // Object for Board, Solver and Solver.Engine, everything else as it is
+        for (int i = 0; i < type.parameterCount(); i++)
+            if (isSolverClass(type.parameterType(i)))
+                type = type.changeParameterType(i, Object.class);
+        if (isSolverClass(type.returnType()))
+            type = type.changeReturnType(Object.class);
+        return type;
+    }
+
+    private static boolean isSolverClass(Class<?> type) {
+        return type == BOARD || type == SOLVER || type == ENGINE;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+import java.util.Arrays;
+
+/*
+ * Class AStar
+ * A* search whose nodes live in a NodeArena, parallel primitive arrays instead of objects.
+ * Besides the tiles, blank cell and hash the arena keeps, node i has its moves so far,
+ * heuristic state and the index of its predecessor here. The arena's hash table is the
+ * closed/open bookkeeping, and the open list is a BucketQueue, since f is a small bounded
+ * integer.
+ * The path is rebuilt from predecessor indices once a goal is dequeued.
+ * The arena never grows past the node budget; a search that needs more nodes stops with a
+ * Solver.BudgetExceededException instead of running the JVM out of memory.
+ * A listener, when given, is told about every f layer once the search moves past it.
+ */
+
+final class AStar {
+    private static final int NONE = NodeArena.NONE;
+
+    private final Heuristic mHeuristic;
+    private final SearchListener mListener;
+    private final int mDimension;
+    private final NodeArena mArena;
+
+    // per node, indexed as in the arena
+    private int[] mMoves;
+    private int[] mState;
+    private int[] mParent;
+
+    private final BucketQueue mOpen;
+
+    private int mGoalNode = NONE;
+    private boolean mDone = false;
+    private long mExpansions = 0;
+    private long mGenerated = 0;
+    private long mDuplicates = 0;
+    private int mPeakOpen = 0;
+
+    // priority of the layer being expanded, and the counts when it started
+    private int mLayer = NONE;
+    private long mLayerExpansions = 0;
+    private long mLayerGenerated = 0;
+
+    AStar(Board initial, Heuristic heuristic, Solver.TieBreak tieBreak, int budget, SearchListener listener) {
+        // budget is the most nodes the arena may hold, listener may be null
+        mHeuristic = heuristic;
+        mListener = listener;
+        mOpen = new BucketQueue(tieBreak);
+        mDimension = initial.dimension();
+        mArena = new NodeArena(mDimension, budget);
+        mMoves = new int[mArena.capacity()];
+        mState = new int[mArena.capacity()];
+        mParent = new int[mArena.capacity()];
+
+        int root = mArena.add(initial);
+        mParent[root] = NONE;
+        mMoves[root] = 0;
+        mState[root] = heuristic.evaluate(mArena.grid(root));
+        mOpen.push(root, heuristic.estimate(mState[root]), 0);
+    }
+
+    void solve() {
+        // run until a goal is dequeued or the open list is exhausted
+        while (!step()) { }
+    }
+
+    boolean step() {
+        // expand one node, returns true once the search is over
+        // an interrupted thread stops the search (checked every few thousand expansions)
+        if (mDone)
+            return true;
+        if ((mExpansions & 0xFFF) == 0xFFF && Thread.currentThread().isInterrupted())
+            throw new java.util.concurrent.CancellationException("search interrupted");
+        int node = pop();
+        if (node == NONE) {
+            layerDone();
+            mDone = true;
+            return true;
+        }
+        if (mOpen.lastPriority() != mLayer) {
+            layerDone();
+            mLayer = mOpen.lastPriority();
+        }
+        if (mArena.isGoal(node)) {
+            layerDone();
+            mGoalNode = node;
+            mDone = true;
+            return true;
+        }
+        mExpansions++;
+        expand(node);
+        if (mOpen.size() > mPeakOpen)
+            mPeakOpen = mOpen.size();
+        return false;
+    }
+
+    private void layerDone() {
+        if (mListener == null || mLayer == NONE)
+            return;
+        mListener.layerDone(mLayer, mExpansions - mLayerExpansions, mGenerated - mLayerGenerated);
+        mLayerExpansions = mExpansions;
+        mLayerGenerated = mGenerated;
+    }
+
+    long expansions() {
+        // nodes expanded so far
+        return mExpansions;
+    }
+
+    SearchStats stats() {
+        // every stored node stays stored, so the arena size is the closed peak
+        return new SearchStats(mExpansions, mGenerated, mDuplicates, mPeakOpen, mArena.size());
+    }
+
+    boolean found() {
+        // was a goal reached?
+        return mGoalNode != NONE;
+    }
+
+    int[] path() {
+        // blank cell after every move of the solution, in order
+        int[] path = new int[mMoves[mGoalNode]];
+        for (int node = mGoalNode; mParent[node] != NONE; node = mParent[node])
+            path[mMoves[node] - 1] = mArena.blank(node);
+        return path;
+    }
+
+    private void expand(int node) {
+        int blank = mArena.blank(node);
+        int previous = mParent[node] == NONE ? NONE : mArena.blank(mParent[node]);
+        int row = blank / mDimension;
+        int col = blank % mDimension;
+        for (int direction = 0; direction < 4; direction++) {
+            int target;
+            if (direction == 0 && row > 0)
+                target = blank - mDimension;
+            else if (direction == 1 && col > 0)
+                target = blank - 1;
+            else if (direction == 2 && row < mDimension-1)
+                target = blank + mDimension;
+            else if (direction == 3 && col < mDimension-1)
+                target = blank + 1;
+            else
+                continue;
+            // never undo the move that led here
+            if (target == previous)
+                continue;
+            generate(node, blank, target);
+        }
+    }
+
+    private void generate(int parent, int blank, int target) {
+        // stage the child in the arena, keep it only if it is new or reached with fewer moves
+        int tile = mArena.stage(parent, target);
+        int moves = mMoves[parent] + 1;
+        mGenerated++;
+
+        int known = mArena.find();
+        if (known != NONE) {
+            if (mMoves[known] <= moves) {
+                mDuplicates++;
+                return;
+            }
+            // cheaper path to a known board: reopen it, the older queue entry becomes stale
+            mMoves[known] = moves;
+            mParent[known] = parent;
+            mOpen.push(known, moves + mHeuristic.estimate(mState[known]), moves);
+            return;
+        }
+        int child = mArena.store();
+        ensureCapacity();
+        mMoves[child] = moves;
+        mParent[child] = parent;
+        mState[child] = mHeuristic.update(mArena.grid(child), mState[parent], tile, target, blank);
+        mOpen.push(child, moves + mHeuristic.estimate(mState[child]), moves);
+    }
+
+    private void ensureCapacity() {
+        // keep the per-node arrays as long as the arena's
+        int capacity = mArena.capacity();
+        if (mMoves.length == capacity)
+            return;
+        mMoves = Arrays.copyOf(mMoves, capacity);
+        mState = Arrays.copyOf(mState, capacity);
+        mParent = Arrays.copyOf(mParent, capacity);
+    }
+
+    private int pop() {
+        // next node to expand, skipping entries made stale by a cheaper path
+        while (true) {
+            int node = mOpen.pop();
+            if (node == NONE || mMoves[node] + mHeuristic.estimate(mState[node]) == mOpen.lastPriority())
+                return node;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+import java.util.Arrays;
+
+/*
+ * Class AnytimeSearch
+ * Anytime weighted A* (Hansen and Zhou 2007) with a weight lowered after every solution, in
+ * the spirit of ARA*.
+ * Nodes are ordered by g + w*h, which reaches a first solution quickly when w > 1. The search
+ * then goes on, pruning every node with g + h at or above the best solution so far, and each
+ * time it improves the solution w drops by WEIGHT_STEP (down to 1) and the open list is
+ * reordered. It stops when the open list runs out, which proves the last solution optimal,
+ * or at the time limit. Nodes live in a NodeArena, as in AStar; when the arena reaches the
+ * node budget the search stops as if out of time, or throws the BudgetExceededException if it
+ * has no solution yet.
+ * The lowest g + h in the open list bounds the optimal length from below, so the best solution
+ * is at most best / lowest times longer than optimal.
+ * Weights are kept in quarters so priorities stay integers for the BucketQueue, which is why
+ * a weight has to be a multiple of 1/QUARTERS; MAX_WEIGHT keeps g + w*h an int with room to
+ * spare for any heuristic of a board up to 16x16.
+ */
+
+final class AnytimeSearch {
+    private static final int NONE = NodeArena.NONE;
+    static final int QUARTERS = 4;
+    static final int MAX_WEIGHT = 64;
+    private static final int WEIGHT_STEP = 2;
+
+    private final Heuristic mHeuristic;
+    private final long mStart;
+    private final long mLimit;
+    private final int mDimension;
+    private final NodeArena mArena;
+    private BucketQueue mOpen = new BucketQueue(Solver.TieBreak.LIFO);
+    private int mWeight;
+
+    // per node, indexed as in the arena
+    private int[] mState;
+    private int[] mMoves;
+    private int[] mParent;
+    private boolean[] mIsOpen;
+    // open nodes per g + h, for the pruning bound and the lower bound
+    private final OpenCounts mOpenByF = new OpenCounts();
+
+    private int[] mBest = null;
+    private long mPops = 0;
+    private long mExpansions = 0;
+    private long mGenerated = 0;
+    private long mDuplicates = 0;
+    private int mPeakOpen = 0;
+
+    AnytimeSearch(Board initial, Heuristic heuristic, double weight, long limitNanos, int budget) {
+        // the search stops limitNanos after it is created, budget is the most nodes it may keep
+        mStart = System.nanoTime();
+        mHeuristic = heuristic;
+        mLimit = limitNanos;
+        // (an exact multiple of 1/QUARTERS, see Solver)
+        mWeight = (int) (weight*QUARTERS);
+        mDimension = initial.dimension();
+        mArena = new NodeArena(mDimension, budget);
+        mState = new int[mArena.capacity()];
+        mMoves = new int[mArena.capacity()];
+        mParent = new int[mArena.capacity()];
+        mIsOpen = new boolean[mArena.capacity()];
+
+        int root = mArena.add(initial);
+        mState[root] = heuristic.evaluate(mArena.grid(root));
+        reach(root, 0, NONE);
+        if (initial.isGoal())
+            mBest = new int[0];
+    }
+
+    void solve() {
+        // (the board has to be solvable, otherwise this only returns at the time limit)
+        while (true) {
+            if ((++mPops & 0xFF) == 0) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new java.util.concurrent.CancellationException("search interrupted");
+                // elapsed time rather than a deadline, so no limit can overflow
+                if (System.nanoTime() - mStart >= mLimit) {
+                    if (mBest == null)
+                        throw new java.util.concurrent.CancellationException("no solution found before the deadline");
+                    return;
+                }
+            }
+            int node = mOpen.pop();
+            if (node == BucketQueue.NONE)
+                return;
+            if (!mIsOpen[node] || key(node) != mOpen.lastPriority())
+                continue;
+            close(node);
+            if (mBest != null && f(node) >= mBest.length)
+                continue;
+            mExpansions++;
+            try {
+                expand(node);
+            } catch (Solver.BudgetExceededException e) {
+                // out of nodes: settle for the best solution so far, if there is one
+                if (mBest == null)
+                    throw e;
+                return;
+            }
+            if (mOpen.size() > mPeakOpen)
+                mPeakOpen = mOpen.size();
+        }
+    }
+
+    int[] path() {
+        // blank cell after every move of the best solution, in order
+        return mBest;
+    }
+
+    double bound() {
+        // the best solution is at most this many times longer than an optimal one
+        int lowest = Math.min(mBest.length, mOpenByF.lowest());
+        return lowest == 0 ? 1.0 : (double) mBest.length / lowest;
+    }
+
+    SearchStats stats() {
+        // every stored node stays stored, so the arena size is the closed peak
+        return new SearchStats(mExpansions, mGenerated, mDuplicates, mPeakOpen, mArena.size());
+    }
+
+    private void expand(int node) {
+        int blank = mArena.blank(node);
+        int previous = mParent[node] == NONE ? NONE : mArena.blank(mParent[node]);
+        int row = blank / mDimension;
+        int col = blank % mDimension;
+        int moves = mMoves[node] + 1;
+        for (int direction = 0; direction < 4; direction++) {
+            int target;
+            if (direction == 0 && row > 0)
+                target = blank - mDimension;
+            else if (direction == 1 && col > 0)
+                target = blank - 1;
+            else if (direction == 2 && row < mDimension-1)
+                target = blank + mDimension;
+            else if (direction == 3 && col < mDimension-1)
+                target = blank + 1;
+            else
+                continue;
+            // never undo the move that led here
+            if (target == previous)
+                continue;
+            generate(node, blank, target, moves);
+        }
+    }
+
+    private void generate(int parent, int blank, int target, int moves) {
+        int tile = mArena.stage(parent, target);
+        mGenerated++;
+        int child = mArena.find();
+        if (child != NONE) {
+            if (mMoves[child] <= moves) {
+                mDuplicates++;
+                return;
+            }
+        } else {
+            child = store();
+            mState[child] = mHeuristic.update(mArena.grid(child), mState[parent], tile, target, blank);
+        }
+        // no path through child can beat the best solution
+        if (mBest != null && moves + mHeuristic.estimate(mState[child]) >= mBest.length)
+            return;
+        if (mIsOpen[child])
+            close(child);
+        reach(child, moves, parent);
+        if (mArena.isGoal(child))
+            improve(child);
+    }
+
+    private void improve(int goal) {
+        // a shorter solution: keep it, then lower the weight and reorder the open list,
+        // dropping the nodes it prunes
+        mBest = new int[mMoves[goal]];
+        for (int node = goal; mParent[node] != NONE; node = mParent[node])
+            mBest[mMoves[node] - 1] = mArena.blank(node);
+        close(goal);
+        if (mWeight > QUARTERS) {
+            mWeight = Math.max(QUARTERS, mWeight - WEIGHT_STEP);
+            mOpen = new BucketQueue(Solver.TieBreak.LIFO);
+            for (int node = 0; node < mArena.size(); node++) {
+                if (!mIsOpen[node])
+                    continue;
+                if (f(node) >= mBest.length)
+                    close(node);
+                else
+                    mOpen.push(node, key(node), mMoves[node]);
+            }
+        }
+    }
+
+    private void reach(int node, int moves, int parent) {
+        mMoves[node] = moves;
+        mParent[node] = parent;
+        mIsOpen[node] = true;
+        mOpen.push(node, key(node), moves);
+        mOpenByF.add(f(node));
+    }
+
+    private void close(int node) {
+        // node leaves the open list
+        mIsOpen[node] = false;
+        mOpenByF.remove(f(node));
+    }
+
+    private int f(int node) {
+        return mMoves[node] + mHeuristic.estimate(mState[node]);
+    }
+
+    private int key(int node) {
+        // g + w*h, in quarters
+        return mMoves[node]*QUARTERS + mWeight*mHeuristic.estimate(mState[node]);
+    }
+
+    private int store() {
+        // keep the staged child as a new node, not reached yet
+        int node = mArena.store();
+        int capacity = mArena.capacity();
+        if (mState.length < capacity) {
+            mState = Arrays.copyOf(mState, capacity);
+            mMoves = Arrays.copyOf(mMoves, capacity);
+            mParent = Arrays.copyOf(mParent, capacity);
+            mIsOpen = Arrays.copyOf(mIsOpen, capacity);
+        }
+        mMoves[node] = Integer.MAX_VALUE;
+        mParent[node] = NONE;
+        return node;
+    }
+}
\ No newline at end of file
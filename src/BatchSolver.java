@@ -0,0 +1,250 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/*
+ * Class BatchSolver
+ * Solves a stream of boards concurrently on a fork-join pool or on virtual threads.
+ * At most a few boards per thread are in flight, so inputs of any size are streamed.
+ * Every board gets its own time limit, counted from the moment a worker starts it; when it
+ * expires the worker is interrupted and the board is reported as timed out. Likewise a board
+ * whose search outgrows the node budget is reported as over budget, so a single hard board
+ * cannot exhaust the memory shared by the whole batch. Unless given one, the budget is the
+ * heap divided between the threads (see defaultNodeBudget()).
+ * Results are handed to the caller in input order or as soon as they are done.
+ */
+
+public final class BatchSolver {
+    // thread pools a batch can run on; VIRTUAL needs a runtime with virtual threads (Java 21+)
+    public enum Pool { FORK_JOIN, VIRTUAL }
+
+    public enum Status { SOLVED, UNSOLVABLE, TIMED_OUT, OVER_BUDGET, FAILED }
+
+    public static final class Result {
+        private final long mIndex;
+        private final Board mBoard;
+        private final Solver mSolver;
+        private final Status mStatus;
+        private final long mMillis;
+
+        private Result(long index, Board board, Solver solver, Status status, long millis) {
+            mIndex = index;
+            mBoard = board;
+            mSolver = solver;
+            mStatus = status;
+            mMillis = millis;
+        }
+
+        public long index() {
+            // position of the board in the input, starting at 0
+            return mIndex;
+        }
+
+        public Board board() {
+            return mBoard;
+        }
+
+        public Solver solver() {
+            // the finished solver, null when the board timed out, went over budget or failed
+            return mSolver;
+        }
+
+        public Status status() {
+            return mStatus;
+        }
+
+        public long millis() {
+            // time spent on the board by its worker
+            return mMillis;
+        }
+    }
+
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+    // heap a stored node may take at the peak of a search, with the doubling of its arrays
+    // (about 64 bytes measured for A* and the bidirectional search on 4x4 boards, twice that
+    // leaves room for the workers peaking together)
+    private static final int BYTES_PER_NODE = 128;
+
+    private final int mThreads;
+    private final Pool mPool;
+    private final long mTimeoutMillis;
+    private final Solver.Engine mEngine;
+    private final Heuristic mHeuristic;
+    private final int mNodeBudget;
+
+    public BatchSolver(int threads, Pool pool, long timeoutMillis, Solver.Engine engine, Heuristic heuristic) {
+        // timeoutMillis <= 0 means no time limit; the heuristic is shared by all workers,
+        // which is safe for the heuristics shipped here since they are read-only once built
+        // every board gets the default node budget for this many threads
+        this(threads, pool, timeoutMillis, engine, heuristic, defaultNodeBudget(threads));
+    }
+
+    public BatchSolver(int threads, Pool pool, long timeoutMillis, Solver.Engine engine, Heuristic heuristic, int nodeBudget) {
+        // same as above, with a node budget per board (see Solver); every worker may hold up to
+        // nodeBudget nodes at once, so size it by the heap divided by the number of threads
+        if (pool == null || engine == null || heuristic == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        if (threads < 1)
+            throw new java.lang.IllegalArgumentException("at least one thread expected");
+        if (nodeBudget < 1)
+            throw new java.lang.IllegalArgumentException("node budget must be positive");
+        mThreads = threads;
+        mPool = pool;
+        mTimeoutMillis = timeoutMillis;
+        mEngine = engine;
+        mHeuristic = heuristic;
+        mNodeBudget = nodeBudget;
+    }
+
+    public static int defaultNodeBudget(int threads) {
+        // node budget per board that keeps threads workers from running out of heap together
+        if (threads < 1)
+            throw new java.lang.IllegalArgumentException("at least one thread expected");
+        long budget = Runtime.getRuntime().maxMemory() / threads / BYTES_PER_NODE;
+        return (int) Math.max(1, Math.min(Solver.NO_BUDGET, budget));
+    }
+
+    public void solve(Iterator<Board> boards, boolean ordered, Consumer<Result> sink) {
+        // solve every board, handing results to sink on the calling thread,
+        // in input order when ordered is set, otherwise as they finish
+        ExecutorService executor = newExecutor();
+        ScheduledExecutorService watchdog = new ScheduledThreadPoolExecutor(1);
+        try {
+            // only unordered batches go through a completion service: its queue keeps every finished
+            // future until taken, so in ordered mode it would hold on to all results of the batch
+            CompletionService<Result> completion = ordered ? null : new ExecutorCompletionService<Result>(executor);
+            ArrayDeque<Future<Result>> pending = new ArrayDeque<Future<Result>>();
+            int limit = mThreads*IN_FLIGHT_PER_THREAD;
+            long index = 0;
+            while (boards.hasNext() || !pending.isEmpty()) {
+                while (boards.hasNext() && pending.size() < limit) {
+                    Callable<Result> task = task(index++, boards.next(), watchdog);
+                    pending.addLast(ordered ? executor.submit(task) : completion.submit(task));
+                }
+                Future<Result> done;
+                if (ordered)
+                    done = pending.removeFirst();
+                else {
+                    done = completion.take();
+                    pending.remove(done);
+                }
+                sink.accept(done.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("batch interrupted");
+        } catch (ExecutionException e) {
+            throw new java.lang.IllegalStateException("batch worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            watchdog.shutdownNow();
+        }
+    }
+
+    private Callable<Result> task(final long index, final Board board, final ScheduledExecutorService watchdog) {
+        return new Callable<Result>() {
+            public Result call() {
+                long start = System.nanoTime();
+                final Thread worker = Thread.currentThread();
+                final boolean[] finished = new boolean[1];
+                Future<?> alarm = null;
+                if (mTimeoutMillis > 0) {
+                    alarm = watchdog.schedule(new Runnable() {
+                        public void run() {
+                            synchronized (finished) {
+                                if (!finished[0])
+                                    worker.interrupt();
+                            }
+                        }
+                    }, mTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+                Solver solver = null;
+                Status status;
+                try {
+                    solver = new Solver(board, mEngine, mHeuristic, Solver.TieBreak.HIGH_G, mNodeBudget);
+                    status = solver.isSolvable() ? Status.SOLVED : Status.UNSOLVABLE;
+                } catch (CancellationException e) {
+                    status = Status.TIMED_OUT;
+                } catch (Solver.BudgetExceededException e) {
+                    status = Status.OVER_BUDGET;
+                } catch (RuntimeException e) {
+                    status = Status.FAILED;
+                } finally {
+                    synchronized (finished) {
+                        finished[0] = true;
+                    }
+                    if (alarm != null)
+                        alarm.cancel(false);
+                    // the worker is reused, do not leave a late alarm behind
+                    Thread.interrupted();
+                }
+                return new Result(index, board, solver, status, (System.nanoTime() - start) / 1000000);
+            }
+        };
+    }
+
+    private ExecutorService newExecutor() {
+        if (mPool == Pool.FORK_JOIN)
+            return new ForkJoinPool(mThreads);
+        // looked up reflectively so the rest of the batch still runs on runtimes without virtual threads
+        try {
+            return (ExecutorService) java.util.concurrent.Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new java.lang.UnsupportedOperationException("virtual threads need Java 21 or later", e);
+        }
+    }
+
+    public static void main(String[] args) throws java.io.IOException {
+        // solve every board of a file and print one line per board: index, status, moves and milliseconds
+        // usage: java BatchSolver <file, or - for standard input> [-threads t] [-timeout ms] [-budget nodes] [-unordered] [-virtual] [-ida]
+        // without -budget every board gets the default node budget for the number of threads
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeout = 0;
+        int budget = 0;    // not given
+        boolean ordered = true;
+        Pool pool = Pool.FORK_JOIN;
+        Solver.Engine engine = Solver.Engine.ASTAR;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-threads"))
+                threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-timeout"))
+                timeout = Long.parseLong(args[++i]);
+            else if (args[i].equals("-budget"))
+                budget = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-unordered"))
+                ordered = false;
+            else if (args[i].equals("-virtual"))
+                pool = Pool.VIRTUAL;
+            else if (args[i].equals("-ida"))
+                engine = Solver.Engine.IDA_STAR;
+            else
+                throw new java.lang.IllegalArgumentException("unknown option " + args[i]);
+        }
+
+        if (budget == 0)
+            budget = defaultNodeBudget(threads);
+        BatchSolver batch = new BatchSolver(threads, pool, timeout, engine, new ManhattanHeuristic(), budget);
+        try (PuzzleReader in = PuzzleReader.open(args[0])) {
+            batch.solve(in, ordered, new Consumer<Result>() {
+                public void accept(Result result) {
+                    String moves = result.status() == Status.SOLVED ? Integer.toString(result.solver().moves()) : "-";
+                    StdOut.println(result.index() + " " + result.status() + " " + moves + " " + result.millis() + "ms");
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,263 @@
+import java.util.Arrays;
+
+/*
+ * Class BidirectionalSearch
+ * Bidirectional heuristic search meeting in the middle (MM, Holte et al. 2016).
+ * One search runs forward from the initial board towards the goal with the given heuristic,
+ * the other runs backward from the goal towards the initial board, guided by the Manhattan
+ * distance of every tile to its cell on the initial board.
+ * Both directions order their open lists by max(f, 2g), which keeps either of them from
+ * going past the middle of an optimal path. Both directions share one NodeArena, so a board
+ * reached from both sides is seen at once and gives a candidate solution. The search stops
+ * once the best candidate is no longer than max(lowest priority, lowest f on either side,
+ * lowest g forward + lowest g backward + 1), the MM stopping rule for unit move costs; the
+ * lowest f and g of each side are kept up to date in OpenCounts rather than searched for.
+ * Like AStar, the search gives up with a Solver.BudgetExceededException once it would keep
+ * more boards than its node budget.
+ */
+
+final class BidirectionalSearch {
+    private static final int NONE = NodeArena.NONE;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+
+    private final Heuristic mHeuristic;
+    private final SearchListener mListener;
+    private final int mDimension;
+    // cell of every tile on the initial board, the target of the backward search
+    private final int[] mStartCell;
+    private final NodeArena mArena;
+    private final BucketQueue[] mOpen = new BucketQueue[2];
+
+    // per node, indexed as in the arena; moves and predecessors per direction
+    private int[] mState;
+    private int[] mToStart;
+    private int[][] mMoves = new int[2][];
+    private int[][] mParent = new int[2][];
+    private boolean[][] mIsOpen = new boolean[2][];
+    // open nodes per f and per g value and direction, for the stopping rule
+    private final OpenCounts[] mOpenByF = { new OpenCounts(), new OpenCounts() };
+    private final OpenCounts[] mOpenByG = { new OpenCounts(), new OpenCounts() };
+
+    private int mBest = UNREACHED;
+    private int mMeeting = NONE;
+    private long mExpansions = 0;
+    private long mGenerated = 0;
+    private long mDuplicates = 0;
+    private int mPeakOpen = 0;
+    private long mPops = 0;
+
+    // lower bound of the layer being searched, and the counts when it started
+    private int mLayer = NONE;
+    private long mLayerExpansions = 0;
+    private long mLayerGenerated = 0;
+
+    BidirectionalSearch(Board initial, Heuristic heuristic, int budget, SearchListener listener) {
+        // budget is the most boards both directions together may keep, listener may be null
+        mHeuristic = heuristic;
+        mListener = listener;
+        mDimension = initial.dimension();
+        int cells = mDimension*mDimension;
+        mStartCell = new int[cells];
+        for (int cell = 0; cell < cells; cell++)
+            mStartCell[initial.tileAt(cell)] = cell;
+        mOpen[FORWARD] = new BucketQueue(Solver.TieBreak.FIFO);
+        mOpen[BACKWARD] = new BucketQueue(Solver.TieBreak.FIFO);
+        mArena = new NodeArena(mDimension, budget);
+        mState = new int[mArena.capacity()];
+        mToStart = new int[mArena.capacity()];
+        for (int direction = 0; direction < 2; direction++) {
+            mMoves[direction] = new int[mArena.capacity()];
+            mParent[direction] = new int[mArena.capacity()];
+            mIsOpen[direction] = new boolean[mArena.capacity()];
+        }
+
+        int[][] blocks = new int[mDimension][mDimension];
+        for (int cell = 0; cell < cells; cell++)
+            blocks[cell / mDimension][cell % mDimension] = (cell + 1) % cells;
+
+        reach(add(initial), FORWARD, 0, NONE);
+        reach(add(new Board(blocks)), BACKWARD, 0, NONE);
+    }
+
+    void solve() {
+        // (the board has to be solvable, otherwise this never returns)
+        while (true) {
+            int forward = mOpen[FORWARD].minPriority();
+            int backward = mOpen[BACKWARD].minPriority();
+            // lower bounds on the cost of any path through an open node
+            int bound = Math.min(forward, backward);
+            bound = Math.max(bound, Math.max(mOpenByF[FORWARD].lowest(), mOpenByF[BACKWARD].lowest()));
+            bound = Math.max(bound, mOpenByG[FORWARD].lowest() + mOpenByG[BACKWARD].lowest() + 1);
+            if (bound > mLayer) {
+                layerDone();
+                mLayer = bound;
+            }
+            if (mBest <= bound) {
+                layerDone();
+                return;
+            }
+            if ((++mPops & 0xFFF) == 0 && Thread.currentThread().isInterrupted())
+                throw new java.util.concurrent.CancellationException("search interrupted");
+            int direction = forward <= backward ? FORWARD : BACKWARD;
+            int node = mOpen[direction].pop();
+            if (priority(node, direction) != mOpen[direction].lastPriority())
+                continue;
+            close(node, direction);
+            mExpansions++;
+            expand(node, direction);
+            int open = mOpen[FORWARD].size() + mOpen[BACKWARD].size();
+            if (open > mPeakOpen)
+                mPeakOpen = open;
+        }
+    }
+
+    int[] path() {
+        // blank cell after every move of the solution, in order
+        int[] path = new int[mBest];
+        int move = mMoves[FORWARD][mMeeting];
+        for (int node = mMeeting; mParent[FORWARD][node] != NONE; node = mParent[FORWARD][node])
+            path[--move] = mArena.blank(node);
+        move = mMoves[FORWARD][mMeeting];
+        for (int node = mParent[BACKWARD][mMeeting]; node != NONE; node = mParent[BACKWARD][node])
+            path[move++] = mArena.blank(node);
+        return path;
+    }
+
+    long expansions() {
+        return mExpansions;
+    }
+
+    SearchStats stats() {
+        // boards are never dropped from the arena, so its size is the closed peak
+        return new SearchStats(mExpansions, mGenerated, mDuplicates, mPeakOpen, mArena.size());
+    }
+
+    private void layerDone() {
+        if (mListener == null || mLayer == NONE)
+            return;
+        mListener.layerDone(mLayer, mExpansions - mLayerExpansions, mGenerated - mLayerGenerated);
+        mLayerExpansions = mExpansions;
+        mLayerGenerated = mGenerated;
+    }
+
+    private void expand(int node, int direction) {
+        int blank = mArena.blank(node);
+        int previous = mParent[direction][node] == NONE ? NONE : mArena.blank(mParent[direction][node]);
+        int row = blank / mDimension;
+        int col = blank % mDimension;
+        int moves = mMoves[direction][node] + 1;
+        for (int move = 0; move < 4; move++) {
+            int target;
+            if (move == 0 && row > 0)
+                target = blank - mDimension;
+            else if (move == 1 && col > 0)
+                target = blank - 1;
+            else if (move == 2 && row < mDimension-1)
+                target = blank + mDimension;
+            else if (move == 3 && col < mDimension-1)
+                target = blank + 1;
+            else
+                continue;
+            // never undo the move that led here
+            if (target == previous)
+                continue;
+            // the tile that slides from target into the blank cell
+            int tile = mArena.stage(node, target);
+            mGenerated++;
+            int index = mArena.find();
+            if (index != NONE) {
+                if (mMoves[direction][index] <= moves) {
+                    mDuplicates++;
+                    continue;
+                }
+            } else {
+                index = store();
+                mState[index] = mHeuristic.update(mArena.grid(index), mState[node], tile, target, blank);
+                mToStart[index] = mToStart[node] - distance(tile, target) + distance(tile, blank);
+            }
+            reach(index, direction, moves, node);
+        }
+    }
+
+    private void reach(int node, int direction, int moves, int parent) {
+        if (mIsOpen[direction][node])
+            close(node, direction);
+        mMoves[direction][node] = moves;
+        mParent[direction][node] = parent;
+        mOpen[direction].push(node, priority(node, direction), moves);
+        mIsOpen[direction][node] = true;
+        mOpenByF[direction].add(moves + estimate(node, direction));
+        mOpenByG[direction].add(moves);
+        // reached from both sides: a candidate solution
+        int other = mMoves[1 - direction][node];
+        if (other != UNREACHED && moves + other < mBest) {
+            mBest = moves + other;
+            mMeeting = node;
+        }
+    }
+
+    private void close(int node, int direction) {
+        // node leaves the open list of direction
+        int moves = mMoves[direction][node];
+        mIsOpen[direction][node] = false;
+        mOpenByF[direction].remove(moves + estimate(node, direction));
+        mOpenByG[direction].remove(moves);
+    }
+
+    private int priority(int node, int direction) {
+        // MM priority max(f, 2g)
+        int moves = mMoves[direction][node];
+        return Math.max(moves + estimate(node, direction), 2*moves);
+    }
+
+    private int estimate(int node, int direction) {
+        return direction == FORWARD ? mHeuristic.estimate(mState[node]) : mToStart[node];
+    }
+
+    private int add(Board board) {
+        // node of board, stored with its heuristic values if it is new
+        int size = mArena.size();
+        int node = mArena.add(board);
+        if (node == size) {
+            init(node);
+            mState[node] = mHeuristic.evaluate(mArena.grid(node));
+            mToStart[node] = 0;
+            for (int cell = 0; cell < mDimension*mDimension; cell++)
+                mToStart[node] += distance(mArena.tileAt(node, cell), cell);
+        }
+        return node;
+    }
+
+    private int store() {
+        // keep the staged child as a new node, reached from neither side yet
+        int node = mArena.store();
+        int capacity = mArena.capacity();
+        if (mState.length < capacity) {
+            mState = Arrays.copyOf(mState, capacity);
+            mToStart = Arrays.copyOf(mToStart, capacity);
+            for (int direction = 0; direction < 2; direction++) {
+                mMoves[direction] = Arrays.copyOf(mMoves[direction], capacity);
+                mParent[direction] = Arrays.copyOf(mParent[direction], capacity);
+                mIsOpen[direction] = Arrays.copyOf(mIsOpen[direction], capacity);
+            }
+        }
+        init(node);
+        return node;
+    }
+
+    private void init(int node) {
+        mMoves[FORWARD][node] = UNREACHED;
+        mMoves[BACKWARD][node] = UNREACHED;
+        mParent[FORWARD][node] = NONE;
+        mParent[BACKWARD][node] = NONE;
+    }
+
+    private int distance(int tile, int cell) {
+        if (tile == 0)
+            return 0;
+        int target = mStartCell[tile];
+        return Math.abs(target / mDimension - cell / mDimension) + Math.abs(target % mDimension - cell % mDimension);
+    }
+}
\ No newline at end of file
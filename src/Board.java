@@ -1,7 +1,5 @@
 import java.util.Arrays;
 
-import edu.princeton.cs.algs4.Queue;
-
 /*
  * Class Board
  * Represents a board for the 8-puzzle game in a specific arrangement of tiles
@@ -9,97 +7,183 @@ import edu.princeton.cs.algs4.Queue;
  *         (using skeleton from Coursera Algorithms part I week 4 programming assignment)
  */
 
-public final class Board {
-    private final int[][] mBlocks;
+public final class Board implements TileGrid {
+    // boards up to 4x4 keep one tile per 4-bit nibble of a long (cell 0 in the lowest nibble),
+    // larger boards fall back to one byte per cell
+    private static final int MAX_PACKED_DIMENSION = 4;
+    private static final int MAX_DIMENSION = 16;
+
+    private final int mDimension;
+    private final long mPacked;
+    private final byte[] mTiles;
+    private final int mBlank;
+    // Zobrist hash of the tile placement, patched in O(1) by every slide
+    private final long mHash;
+    // heuristics are computed once for a board built from blocks and patched in O(1) for its children
+    private final int mHamming;
+    private final int mManhattan;
 
     public Board(int[][] blocks) {
         // construct a board from an n-by-n array of blocks
         // (where blocks[i][j] = block in row i, column j)
-        mBlocks = new int[blocks.length][blocks[0].length];
-        for (int i = 0; i < blocks.length; i++) {
-            for (int j = 0; j < blocks[0].length; j++) {
-                mBlocks[i][j] = blocks[i][j];
+        int n = blocks.length;
+        if (n > MAX_DIMENSION)
+            throw new java.lang.IllegalArgumentException("board dimension above " + MAX_DIMENSION);
+        long packed = 0L;
+        byte[] tiles = n > MAX_PACKED_DIMENSION ? new byte[n*n] : null;
+        int blank = -1;
+        long hash = 0L;
+        int hamming = 0;
+        int manhattan = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int cell = i*n + j;
+                int tile = blocks[i][j];
+                if (tile == 0)
+                    blank = cell;
+                hash ^= zobrist(cell, tile);
+                hamming += misplaced(tile, cell);
+                manhattan += ManhattanHeuristic.distance(tile, cell, n);
+                if (tiles == null)
+                    packed |= ((long) tile) << (cell << 2);
+                else
+                    tiles[cell] = (byte) tile;
             }
         }
+        mDimension = n;
+        mPacked = packed;
+        mTiles = tiles;
+        mBlank = blank;
+        mHash = hash;
+        mHamming = hamming;
+        mManhattan = manhattan;
+    }
+
+    private Board(int dimension, long packed, byte[] tiles, int blank, long hash, int hamming, int manhattan) {
+        // used by neighbors() and twin(), the encoding and the heuristics are already built
+        mDimension = dimension;
+        mPacked = packed;
+        mTiles = tiles;
+        mBlank = blank;
+        mHash = hash;
+        mHamming = hamming;
+        mManhattan = manhattan;
+    }
+
+    private static int misplaced(int tile, int cell) {
+        // contribution of a tile sitting on a cell to the hamming distance
+        return (tile != 0 && tile != cell + 1) ? 1 : 0;
+    }
+
+    static long zobrist(int cell, int tile) {
+        // pseudo-random key of a tile sitting on a cell (splitmix64 finalizer, so no table is kept)
+        // the blank contributes nothing: its cell is implied by where the tiles are
+        if (tile == 0)
+            return 0L;
+        long z = (cell * 256L + tile) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     public int dimension() {
         // board dimension n
-        return mBlocks.length;
+        return mDimension;
+    }
+
+    public int tileAt(int cell) {
+        // tile stored in the given cell (row-major), 0 for the blank
+        if (mTiles == null)
+            return (int) (mPacked >>> (cell << 2)) & 0xF;
+        return mTiles[cell] & 0xFF;
+    }
+
+    int blankCell() {
+        // cell (row-major) currently holding the blank
+        return mBlank;
     }
 
     public int hamming() {
         // number of blocks out of place
-        int boardDimension = mBlocks.length;
-        int count = 0;
-        for (int i = 0; i < boardDimension; i++) {
-            for (int j = 0; j < boardDimension; j++) {
-                if (mBlocks[i][j] != 0 && mBlocks[i][j] != i*boardDimension + j + 1)
-                    count++;
-            }
-        }
-        return count;
+        return mHamming;
     }
 
     public int manhattan() {
         // sum of Manhattan distances between blocks and goal
-        // calculate position each tile should be
-        // manhattan equals to should-be-position less current position
-        int boardDimension = mBlocks.length;
-        int sum = 0;
-        for (int i = 0; i < boardDimension; i++) {
-            for (int j = 0; j < boardDimension; j++) {
-                if (mBlocks[i][j] != 0) {
-                    int iCorrect = (mBlocks[i][j]-1) / boardDimension;
-                    int jCorrect = (mBlocks[i][j]-1) % boardDimension;
-                    sum += Math.abs(iCorrect - i) + Math.abs(jCorrect - j);
-                }
+        return mManhattan;
+    }
+
+    public boolean isSolvable() {
+        // can the goal be reached from this board by sliding tiles?
+        // every slide is a transposition with the blank and moves the blank by one cell, so the parity
+        // of the permutation (blank counted as tile n*n) must match the parity of the blank's distance
+        // to the bottom-right corner. This is the usual inversion count plus blank row test, but the
+        // permutation parity is taken from its cycle decomposition, which is linear in the number of cells
+        int cells = mDimension*mDimension;
+        boolean[] seen = new boolean[cells];
+        int transpositions = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (seen[cell])
+                continue;
+            int length = 0;
+            for (int at = cell; !seen[at]; length++) {
+                seen[at] = true;
+                int tile = tileAt(at);
+                at = tile == 0 ? cells - 1 : tile - 1;
             }
+            transpositions += length - 1;
         }
-        return sum;
+        int blankDistance = (mDimension - 1 - mBlank / mDimension) + (mDimension - 1 - mBlank % mDimension);
+        return (transpositions & 1) == (blankDistance & 1);
     }
 
     public boolean isGoal() {
         // is this board the goal board?
-        return (hamming() == 0);
+        return (mHamming == 0);
+    }
+
+    private Board swap(int a, int b) {
+        // a copy of this board with the contents of cells a and b exchanged
+        int tileA = tileAt(a);
+        int tileB = tileAt(b);
+        int blank = mBlank == a ? b : (mBlank == b ? a : mBlank);
+        long hash = mHash ^ zobrist(a, tileA) ^ zobrist(b, tileB) ^ zobrist(a, tileB) ^ zobrist(b, tileA);
+        int hamming = mHamming - misplaced(tileA, a) - misplaced(tileB, b) + misplaced(tileB, a) + misplaced(tileA, b);
+        int manhattan = mManhattan
+                - ManhattanHeuristic.distance(tileA, a, mDimension) - ManhattanHeuristic.distance(tileB, b, mDimension)
+                + ManhattanHeuristic.distance(tileB, a, mDimension) + ManhattanHeuristic.distance(tileA, b, mDimension);
+        if (mTiles == null) {
+            int shiftA = a << 2;
+            int shiftB = b << 2;
+            long packed = mPacked & ~((0xFL << shiftA) | (0xFL << shiftB));
+            packed |= ((long) tileB << shiftA) | ((long) tileA << shiftB);
+            return new Board(mDimension, packed, null, blank, hash, hamming, manhattan);
+        }
+        byte[] tiles = mTiles.clone();
+        tiles[a] = (byte) tileB;
+        tiles[b] = (byte) tileA;
+        return new Board(mDimension, 0L, tiles, blank, hash, hamming, manhattan);
     }
 
-    private int[][] copy(int[][] a) {
-        int[][] copy = new int[a.length][a.length];
-        for (int i = 0; i < a.length; i++)
-            for (int j = 0; j < a.length; j++)
-                copy[i][j] = a[i][j];
-        return copy;
+    Board slide(int cell) {
+        // the board obtained by sliding the tile in the given cell (next to the blank) into the blank
+        return swap(mBlank, cell);
     }
-    
+
     public Board twin() {
         // a board that is obtained by exchanging any pair of blocks
         // a criteria would be to iterate horizontally and then vertically over the
         // board to find the first two tiles non blank and swap them
-        
-        // create a copy of the board
-        int[][] auxBlocks = copy(mBlocks);
-        
-        for (int i = 0; i < auxBlocks.length; i++) {
-            for (int j = 0; j < auxBlocks.length; j++) {
-                if (isValid(auxBlocks, i, j) && isValid(auxBlocks, i, j+1)) {
-                    int aux = auxBlocks[i][j];
-                    auxBlocks[i][j] = auxBlocks[i][j+1];
-                    auxBlocks[i][j+1] = aux;
-                    return (new Board(auxBlocks));
-                }
+        for (int i = 0; i < mDimension; i++) {
+            for (int j = 0; j + 1 < mDimension; j++) {
+                int cell = i*mDimension + j;
+                if (tileAt(cell) != 0 && tileAt(cell + 1) != 0)
+                    return swap(cell, cell + 1);
             }
         }
         return null;
     }
 
-    private boolean isValid(int[][] auxBlocks, int i, int j) {
-        if (i >= 0 && i <= auxBlocks.length-1 && j >= 0 && j <= auxBlocks.length-1)
-            if (auxBlocks[i][j] != 0)
-                return true;
-        return false;
-    }
-
     public boolean equals(Object y) {
         // does this board equal y?
         if (y == null)
@@ -108,61 +192,38 @@ public final class Board {
             return true;
         if (this.getClass() != y.getClass())
             return false;
-        if (mBlocks == null)
-            if (((Board) y).mBlocks == null)
-                return true;
-//            else
-//                return false;
-        return Arrays.deepEquals(this.mBlocks, ((Board) y).mBlocks);
+        Board that = (Board) y;
+        if (mDimension != that.mDimension || mHash != that.mHash)
+            return false;
+        if (mTiles == null)
+            return mPacked == that.mPacked;
+        return Arrays.equals(mTiles, that.mTiles);
+    }
+
+    public int hashCode() {
+        // consistent with equals(): equal boards have equal tile placements, hence equal Zobrist hashes
+        return (int) (mHash ^ (mHash >>> 32));
     }
 
     public Iterable<Board> neighbors() {
         // all neighboring boards
         // neighbors are all board that an be obtained if we make 1 movement
         // basically swapping the blank tile with all its four neighbors if the neighbor is in the board (negative and out of bounds indexes are not allowed)
-
-        int boardDimension = mBlocks.length;
-        // first find the blank tile
-        int iBlank = -1, jBlank = -1;
-        for (int i = 0; i < boardDimension; i++) {
-            for (int j = 0; j < boardDimension; j++) {
-                if (mBlocks[i][j] == 0) {
-                    iBlank = i;
-                    jBlank = j;
-                    break;
-                }
-            }
-        }
-
-        // now create a stack to keep all neighbors
-        Queue<Board> neighbors = new Queue<Board>();
+        int iBlank = mBlank / mDimension;
+        int jBlank = mBlank % mDimension;
 
         // compute all neighbors (4 maximum and at least 2)
-        if (iBlank > 0) { // then we can swap it to its upper neighbor (and then return the tile back to its original place)
-            int[][] auxBlocks = copy(mBlocks);
-            auxBlocks[iBlank][jBlank] = auxBlocks[iBlank-1][jBlank];
-            auxBlocks[iBlank-1][jBlank] = 0;
-            neighbors.enqueue(new Board(auxBlocks));
-        }
-        if (jBlank > 0) { // then we can swap it to its left neighbor (and then return the tile back to its original place)
-            int[][] auxBlocks = copy(mBlocks);
-            auxBlocks[iBlank][jBlank] = auxBlocks[iBlank][jBlank-1];
-            auxBlocks[iBlank][jBlank-1] = 0;
-            neighbors.enqueue(new Board(auxBlocks));
-        }
-        if (iBlank < mBlocks.length-1) { // then we can swap it to its lower neighbor (and then return the tile back to its original place)
-            int[][] auxBlocks = copy(mBlocks);
-            auxBlocks[iBlank][jBlank] = auxBlocks[iBlank+1][jBlank];
-            auxBlocks[iBlank+1][jBlank] = 0;
-            neighbors.enqueue(new Board(auxBlocks));
-        }
-        if (jBlank < mBlocks.length-1) { // then we can swap it to its right neighbor (and then return the tile back to its original place)
-            int[][] auxBlocks = copy(mBlocks);
-            auxBlocks[iBlank][jBlank] = auxBlocks[iBlank][jBlank+1];
-            auxBlocks[iBlank][jBlank+1] = 0;
-            neighbors.enqueue(new Board(auxBlocks));
-        }
-        return neighbors;
+        Board[] neighbors = new Board[4];
+        int count = 0;
+        if (iBlank > 0) // then we can swap it to its upper neighbor
+            neighbors[count++] = swap(mBlank, mBlank - mDimension);
+        if (jBlank > 0) // then we can swap it to its left neighbor
+            neighbors[count++] = swap(mBlank, mBlank - 1);
+        if (iBlank < mDimension-1) // then we can swap it to its lower neighbor
+            neighbors[count++] = swap(mBlank, mBlank + mDimension);
+        if (jBlank < mDimension-1) // then we can swap it to its right neighbor
+            neighbors[count++] = swap(mBlank, mBlank + 1);
+        return Arrays.asList(neighbors).subList(0, count);
     }
 
     public String toString() {
@@ -170,10 +231,15 @@ public final class Board {
         int boardDimension = dimension();
 
         StringBuilder output = new StringBuilder();
-        output.append(Integer.toString(boardDimension) + "\n");
+        output.append(boardDimension).append('\n');
         for (int i = 0; i < boardDimension; i++) {
-            for (int j = 0; j < boardDimension; j++)
-                output.append(String.format("%2d ", mBlocks[i][j]));
+            for (int j = 0; j < boardDimension; j++) {
+                // same as "%2d ", without a format per tile
+                int tile = tileAt(i*boardDimension + j);
+                if (tile < 10)
+                    output.append(' ');
+                output.append(tile).append(' ');
+            }
             output.append("\n");
         }
         return output.toString();
@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+/*
+ * Class BucketQueue
+ * Open list of node indices keyed by a small non-negative priority (f = moves + estimate).
+ * Every priority has its own bucket, so push and pop are O(1) amortized. How nodes with the
+ * same priority are ordered is up to the tie-breaking policy:
+ * HIGH_G keeps one stack per (f, moves) and pops the deepest node first, LIFO and FIFO keep a
+ * single bucket per f used as a stack or as a queue.
+ * Stale entries are not removed; the search recognises them when they come out.
+ */
+
+final class BucketQueue {
+    static final int NONE = -1;
+
+    private final Solver.TieBreak mPolicy;
+    // bucket ids: f for LIFO/FIFO, f*(f+1)/2 + moves for HIGH_G (moves <= f)
+    private int[][] mBuckets = new int[64][];
+    private int[] mHead = new int[64];
+    private int[] mTail = new int[64];
+    // entries per f, and for HIGH_G the highest moves that may still have entries
+    private int[] mCount = new int[16];
+    private int[] mTopMoves = new int[16];
+    private int mMinPriority = Integer.MAX_VALUE;
+    private int mSize = 0;
+    private int mLastPriority = NONE;
+
+    BucketQueue(Solver.TieBreak policy) {
+        mPolicy = policy;
+    }
+
+    void push(int node, int priority, int moves) {
+        if (priority >= mCount.length) {
+            int length = Math.max(priority + 1, mCount.length*2);
+            mCount = Arrays.copyOf(mCount, length);
+            mTopMoves = Arrays.copyOf(mTopMoves, length);
+        }
+        int id = id(priority, moves);
+        if (id >= mBuckets.length) {
+            int length = Math.max(id + 1, mBuckets.length*2);
+            mBuckets = Arrays.copyOf(mBuckets, length);
+            mHead = Arrays.copyOf(mHead, length);
+            mTail = Arrays.copyOf(mTail, length);
+        }
+        int[] bucket = mBuckets[id];
+        if (bucket == null)
+            bucket = mBuckets[id] = new int[16];
+        else if (mTail[id] == bucket.length)
+            bucket = mBuckets[id] = Arrays.copyOf(bucket, bucket.length*2);
+        bucket[mTail[id]++] = node;
+
+        mCount[priority]++;
+        if (moves > mTopMoves[priority])
+            mTopMoves[priority] = moves;
+        if (priority < mMinPriority)
+            mMinPriority = priority;
+        mSize++;
+    }
+
+    int pop() {
+        // next node with the lowest priority, NONE when empty
+        int priority = minPriority();
+        if (priority == Integer.MAX_VALUE)
+            return NONE;
+        int id;
+        if (mPolicy == Solver.TieBreak.HIGH_G) {
+            while (mTail[id(priority, mTopMoves[priority])] == 0)
+                mTopMoves[priority]--;
+            id = id(priority, mTopMoves[priority]);
+        } else
+            id = priority;
+
+        int node;
+        if (mPolicy == Solver.TieBreak.FIFO) {
+            node = mBuckets[id][mHead[id]++];
+            if (mHead[id] == mTail[id])
+                mHead[id] = mTail[id] = 0;
+        } else
+            node = mBuckets[id][--mTail[id]];
+        mCount[priority]--;
+        mSize--;
+        mLastPriority = priority;
+        return node;
+    }
+
+    int lastPriority() {
+        // priority the last popped node was pushed with
+        return mLastPriority;
+    }
+
+    int minPriority() {
+        // lowest priority with entries (stale ones included), Integer.MAX_VALUE when empty
+        while (mMinPriority < mCount.length && mCount[mMinPriority] == 0)
+            mMinPriority++;
+        return mMinPriority < mCount.length ? mMinPriority : Integer.MAX_VALUE;
+    }
+
+    int size() {
+        // entries in the queue, stale ones included
+        return mSize;
+    }
+
+    private int id(int priority, int moves) {
+        if (mPolicy == Solver.TieBreak.HIGH_G)
+            return priority*(priority + 1)/2 + moves;
+        return priority;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+/*
+ * Interface Heuristic
+ * Admissible estimate of the number of moves left to reach the goal.
+ * A heuristic works on an int state that it evaluates once for the initial board and
+ * then patches for every slide, so the search never rescans the whole board per child.
+ * For most heuristics the state is the estimate itself.
+ */
+
+public interface Heuristic {
+    // state of a board, computed from scratch
+    int evaluate(TileGrid grid);
+
+    // state after tile slid from cell "from" into cell "to"; grid already shows the slide
+    int update(TileGrid grid, int state, int tile, int from, int to);
+
+    // lower bound on the moves left, read from a state
+    int estimate(int state);
+}
\ No newline at end of file
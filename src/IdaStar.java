@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Class IdaStar
+ * Iterative Deepening A* over a single mutable copy of the board.
+ * Moves are applied and undone in place, so memory is linear in the solution depth
+ * and no object is allocated per expanded node.
+ */
+
+final class IdaStar implements TileGrid {
+    static final int FOUND = -1;
+
+    private final Heuristic mHeuristic;
+    private final int mDimension;
+    private final int[] mTiles;
+    private int mBlank;
+    private int mHamming;
+    private int mState;
+
+    // mPath[d] = blank cell after move d+1 of the current branch, counted from the start board
+    private int[] mPath;
+    private int mMoves = -1;
+    private int mOffset = 0;
+    private long mVisited = 0;
+    private long mExpanded = 0;
+    private long mGenerated = 0;
+    private long mPruned = 0;
+    private int mDeepest = 0;
+    private AtomicBoolean mStop = null;
+    private SearchListener mListener = null;
+
+    IdaStar(Board initial, Heuristic heuristic) {
+        mHeuristic = heuristic;
+        mDimension = initial.dimension();
+        int cells = mDimension*mDimension;
+        mTiles = new int[cells];
+        for (int cell = 0; cell < cells; cell++)
+            mTiles[cell] = initial.tileAt(cell);
+        mBlank = initial.blankCell();
+        mHamming = initial.hamming();
+        mState = heuristic.evaluate(this);
+        mPath = new int[Math.max(16, heuristic.estimate(mState)*2)];
+    }
+
+    public int dimension() {
+        return mDimension;
+    }
+
+    public int tileAt(int cell) {
+        return mTiles[cell];
+    }
+
+    void solve() {
+        // raise the f bound to the smallest f that exceeded it until a goal is reached
+        // (the board has to be solvable, otherwise this never returns)
+        int bound = mHeuristic.estimate(mState);
+        while (true) {
+            long expanded = mExpanded;
+            long generated = mGenerated;
+            int next = iterate(0, bound, -1);
+            if (mListener != null)
+                mListener.layerDone(bound, mExpanded - expanded, mGenerated - generated);
+            if (next == FOUND)
+                return;
+            bound = next;
+        }
+    }
+
+    int iterate(int moves, int bound, int previous) {
+        // one bounded depth-first search below the start board, which is reached after the given
+        // number of moves, with previous as the blank cell before it (-1 for none)
+        // returns FOUND or the smallest f above bound; the board is left as it was
+        mOffset = moves;
+        return search(moves, bound, previous);
+    }
+
+    void stopWhen(AtomicBoolean stop) {
+        // abort searches with a CancellationException once stop is set (checked like interrupts)
+        mStop = stop;
+    }
+
+    void reportTo(SearchListener listener) {
+        // tell listener about every iteration of solve()
+        mListener = listener;
+    }
+
+    SearchStats stats() {
+        // the open size is the deepest path followed, nothing is kept closed
+        return new SearchStats(mExpanded, mGenerated, mPruned, mDeepest, 0);
+    }
+
+    int[] path() {
+        // blank cell after every move of the solution found below the start board, in order
+        return Arrays.copyOf(mPath, mMoves);
+    }
+
+    private int search(int moves, int bound, int previous) {
+        // depth-first search below the current board, returns FOUND or the smallest f above bound
+        // an interrupted thread stops the search (checked every few thousand nodes)
+        if ((++mVisited & 0xFFF) == 0 && (Thread.currentThread().isInterrupted() || (mStop != null && mStop.get())))
+            throw new CancellationException("search interrupted");
+        int priority = moves + mHeuristic.estimate(mState);
+        if (priority > bound)
+            return priority;
+        if (mHamming == 0) {
+            mMoves = moves - mOffset;
+            return FOUND;
+        }
+        if (moves - mOffset == mPath.length)
+            mPath = Arrays.copyOf(mPath, mPath.length*2);
+        if (moves - mOffset >= mDeepest)
+            mDeepest = moves - mOffset + 1;
+        mExpanded++;
+
+        int min = Integer.MAX_VALUE;
+        int row = mBlank / mDimension;
+        int col = mBlank % mDimension;
+        for (int direction = 0; direction < 4; direction++) {
+            int target;
+            if (direction == 0 && row > 0)
+                target = mBlank - mDimension;
+            else if (direction == 1 && col > 0)
+                target = mBlank - 1;
+            else if (direction == 2 && row < mDimension-1)
+                target = mBlank + mDimension;
+            else if (direction == 3 && col < mDimension-1)
+                target = mBlank + 1;
+            else
+                continue;
+            // never undo the move that led here
+            if (target == previous) {
+                mPruned++;
+                continue;
+            }
+
+            int from = mBlank;
+            mGenerated++;
+            slide(target);
+            mPath[moves - mOffset] = target;
+            int next = search(moves + 1, bound, from);
+            if (next == FOUND)
+                return FOUND;
+            slide(from);
+            if (next < min)
+                min = next;
+        }
+        return min;
+    }
+
+    private void slide(int cell) {
+        // move the tile in cell (next to the blank) into the blank, updating the heuristics
+        int tile = mTiles[cell];
+        int to = mBlank;
+        mHamming += misplaced(tile, to) - misplaced(tile, cell);
+        mTiles[to] = tile;
+        mTiles[cell] = 0;
+        mBlank = cell;
+        mState = mHeuristic.update(this, mState, tile, cell, to);
+    }
+
+    private static int misplaced(int tile, int cell) {
+        return tile != cell + 1 ? 1 : 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*
+ * Class LinearConflictHeuristic
+ * Manhattan distance plus linear conflicts: when tiles share their goal row (or column) and
+ * already sit in it in the wrong order, some of them must leave the line and come back,
+ * which costs two extra moves each. The number of tiles that must leave a line is its tile
+ * count less the longest run already in goal order, so the estimate stays admissible.
+ * A vertical slide keeps every column in the same order and changes only the two rows it
+ * touches (horizontal slides likewise), so updates rescan two lines instead of the board.
+ */
+
+public final class LinearConflictHeuristic implements Heuristic {
+    public int evaluate(TileGrid grid) {
+        int n = grid.dimension();
+        int sum = 0;
+        for (int cell = 0; cell < n*n; cell++)
+            sum += ManhattanHeuristic.distance(grid.tileAt(cell), cell, n);
+        for (int line = 0; line < n; line++)
+            sum += 2*conflicts(grid, line, true, -1, 0) + 2*conflicts(grid, line, false, -1, 0);
+        return sum;
+    }
+
+    public int update(TileGrid grid, int state, int tile, int from, int to) {
+        int n = grid.dimension();
+        state += ManhattanHeuristic.distance(tile, to, n) - ManhattanHeuristic.distance(tile, from, n);
+        boolean vertical = from / n != to / n;
+        int lineFrom = vertical ? from / n : from % n;
+        int lineTo = vertical ? to / n : to % n;
+        // before the slide the tile sat on "from" and "to" was blank
+        state -= 2*conflicts(grid, lineFrom, vertical, from, tile) + 2*conflicts(grid, lineTo, vertical, to, 0);
+        state += 2*conflicts(grid, lineFrom, vertical, -1, 0) + 2*conflicts(grid, lineTo, vertical, -1, 0);
+        return state;
+    }
+
+    public int estimate(int state) {
+        return state;
+    }
+
+    private static int conflicts(TileGrid grid, int line, boolean row, int overrideCell, int overrideTile) {
+        // tiles of a row (or column) that have to leave it, reading overrideTile in overrideCell
+        int n = grid.dimension();
+        // goal positions of the tiles that belong to this line, 4 bits each (lines are at most 16 cells)
+        long goals = 0L;
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int cell = row ? line*n + i : i*n + line;
+            int tile = cell == overrideCell ? overrideTile : grid.tileAt(cell);
+            if (tile == 0)
+                continue;
+            if (row && (tile-1) / n == line)
+                goals |= ((long) ((tile-1) % n)) << (4*count++);
+            else if (!row && (tile-1) % n == line)
+                goals |= ((long) ((tile-1) / n)) << (4*count++);
+        }
+        if (count < 2)
+            return 0;
+        // longest increasing run of goal positions, kept as 4-bit lengths - 1 so nothing is allocated
+        long longest = 0L;
+        int best = 0;
+        for (int i = 0; i < count; i++) {
+            int goal = (int) (goals >>> (4*i)) & 0xF;
+            int length = 1;
+            for (int j = 0; j < i; j++) {
+                if (((goals >>> (4*j)) & 0xF) < goal)
+                    length = Math.max(length, (int) ((longest >>> (4*j)) & 0xF) + 2);
+            }
+            longest |= ((long) (length - 1)) << (4*i);
+            best = Math.max(best, length);
+        }
+        return count - best;
+    }
+}
\ No newline at end of file
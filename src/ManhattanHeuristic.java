@@ -0,0 +1,33 @@
+/*
+ * Class ManhattanHeuristic
+ * Sum of the Manhattan distances between each tile and its goal cell.
+ * A slide changes the distance of the moved tile only, by exactly one.
+ */
+
+public final class ManhattanHeuristic implements Heuristic {
+    public int evaluate(TileGrid grid) {
+        if (grid instanceof Board)
+            return ((Board) grid).manhattan();
+        int n = grid.dimension();
+        int sum = 0;
+        for (int cell = 0; cell < n*n; cell++)
+            sum += distance(grid.tileAt(cell), cell, n);
+        return sum;
+    }
+
+    public int update(TileGrid grid, int state, int tile, int from, int to) {
+        int n = grid.dimension();
+        return state - distance(tile, from, n) + distance(tile, to, n);
+    }
+
+    public int estimate(int state) {
+        return state;
+    }
+
+    static int distance(int tile, int cell, int n) {
+        // distance from cell to the goal cell of tile, 0 for the blank
+        if (tile == 0)
+            return 0;
+        return Math.abs((tile-1) / n - cell / n) + Math.abs((tile-1) % n - cell % n);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/*
+ * Class NodeArena
+ * Boards of a search stored in parallel primitive arrays instead of objects, shared by the
+ * engines that keep every node they generate (AStar, BidirectionalSearch, AnytimeSearch).
+ * Node i keeps its tiles packed in mStates (mWords longs per node), its blank cell and its
+ * Zobrist hash; an open-addressing table of node indices finds the node holding given tiles.
+ * A child is first written to a scratch slot past the last node, looked up, and only stored
+ * if it is new, so duplicates cost no memory. What else a node needs (moves, predecessor,
+ * heuristic state) is up to the engine, in arrays indexed the same way.
+ * The arena never grows past its node budget; storing one node more throws a
+ * Solver.BudgetExceededException instead of running the JVM out of memory.
+ */
+
+final class NodeArena {
+    static final int NONE = -1;
+
+    private final int mDimension;
+    private final int mBudget;
+    private final int mBits;
+    private final int mTilesPerWord;
+    private final int mWords;
+    private final long mMask;
+    private final long[] mGoal;
+    private final Cursor mCursor = new Cursor();
+
+    private int mSize = 0;
+    private long[] mStates;
+    private byte[] mBlank;
+    private int[] mHash;
+
+    // node index + 1 of every stored node, 0 for empty slots (a power of two, whatever the budget)
+    private int[] mTable = new int[2048];
+
+    NodeArena(int dimension, int budget) {
+        // budget is the most nodes the arena may hold
+        mDimension = dimension;
+        mBudget = budget;
+        int cells = dimension*dimension;
+        mBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(cells - 1));
+        mTilesPerWord = 64 / mBits;
+        mWords = (cells + mTilesPerWord - 1) / mTilesPerWord;
+        mMask = (1L << mBits) - 1;
+
+        int capacity = Math.min(1024, budget) + 1;
+        mStates = new long[capacity*mWords];
+        mBlank = new byte[capacity];
+        mHash = new int[capacity];
+
+        mGoal = new long[mWords];
+        for (int cell = 0; cell < cells; cell++)
+            set(mGoal, 0, cell, (cell + 1) % cells);
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    int capacity() {
+        // nodes that fit before the arrays grow; engines size their own per-node arrays to match
+        return mBlank.length;
+    }
+
+    int add(Board board) {
+        // index of the node holding board, stored first if it is new
+        int scratch = scratch();
+        for (int cell = 0; cell < mDimension*mDimension; cell++)
+            set(mStates, scratch, cell, board.tileAt(cell));
+        mBlank[scratch] = (byte) board.blankCell();
+        mHash[scratch] = board.hashCode();
+        int known = find();
+        return known != NONE ? known : store();
+    }
+
+    int stage(int parent, int target) {
+        // write the child of parent whose blank moved to target into the scratch slot,
+        // returns the tile that slid (from target into the parent's blank cell)
+        int scratch = scratch();
+        int blank = blank(parent);
+        System.arraycopy(mStates, parent*mWords, mStates, scratch*mWords, mWords);
+        int tile = get(mStates, parent, target);
+        set(mStates, scratch, blank, tile);
+        set(mStates, scratch, target, 0);
+        mBlank[scratch] = (byte) target;
+        mHash[scratch] = mHash[parent] ^ hash(Board.zobrist(target, tile) ^ Board.zobrist(blank, tile));
+        return tile;
+    }
+
+    int find() {
+        // index of a stored node with the same tiles as the scratch slot, NONE if there is none
+        int mask = mTable.length - 1;
+        for (int slot = mix(mHash[mSize]) & mask; mTable[slot] != 0; slot = (slot + 1) & mask) {
+            int other = mTable[slot] - 1;
+            if (mHash[other] == mHash[mSize] && sameTiles(other, mSize))
+                return other;
+        }
+        return NONE;
+    }
+
+    int store() {
+        // keep the scratch slot as a new node and return its index
+        if (mSize == mBudget)
+            throw new Solver.BudgetExceededException(mBudget);
+        int node = mSize++;
+        // keep the table at most half full
+        if (mSize*2 > mTable.length) {
+            int[] old = mTable;
+            mTable = new int[old.length*2];
+            for (int entry : old)
+                if (entry != 0)
+                    place(entry - 1);
+        }
+        place(node);
+        return node;
+    }
+
+    int blank(int node) {
+        return mBlank[node] & 0xFF;
+    }
+
+    int tileAt(int node, int cell) {
+        return get(mStates, node, cell);
+    }
+
+    boolean isGoal(int node) {
+        for (int w = 0; w < mWords; w++)
+            if (mStates[node*mWords + w] != mGoal[w])
+                return false;
+        return true;
+    }
+
+    TileGrid grid(int node) {
+        // TileGrid view of a node, valid until the next call
+        return mCursor.at(node);
+    }
+
+    TileGrid scratchGrid() {
+        // TileGrid view of the scratch slot, valid until the next call
+        return mCursor.at(mSize);
+    }
+
+    private int scratch() {
+        // the slot past the last node, the arrays grown to hold it (at most one past the budget)
+        if (mSize == mBlank.length) {
+            int capacity = (int) Math.min(mBlank.length*2L, mBudget + 1L);
+            mStates = Arrays.copyOf(mStates, capacity*mWords);
+            mBlank = Arrays.copyOf(mBlank, capacity);
+            mHash = Arrays.copyOf(mHash, capacity);
+        }
+        return mSize;
+    }
+
+    private int get(long[] states, int node, int cell) {
+        int shift = (cell % mTilesPerWord)*mBits;
+        return (int) ((states[node*mWords + cell / mTilesPerWord] >>> shift) & mMask);
+    }
+
+    private void set(long[] states, int node, int cell, int tile) {
+        int word = node*mWords + cell / mTilesPerWord;
+        int shift = (cell % mTilesPerWord)*mBits;
+        states[word] = (states[word] & ~(mMask << shift)) | ((long) tile << shift);
+    }
+
+    private static int hash(long zobrist) {
+        return (int) (zobrist ^ (zobrist >>> 32));
+    }
+
+    private void place(int node) {
+        int mask = mTable.length - 1;
+        int slot = mix(mHash[node]) & mask;
+        while (mTable[slot] != 0)
+            slot = (slot + 1) & mask;
+        mTable[slot] = node + 1;
+    }
+
+    private static int mix(int hash) {
+        // spread the hash bits before masking, linear probing is sensitive to clustering
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean sameTiles(int a, int b) {
+        for (int w = 0; w < mWords; w++)
+            if (mStates[a*mWords + w] != mStates[b*mWords + w])
+                return false;
+        return true;
+    }
+
+    private final class Cursor implements TileGrid {
+        // TileGrid view of one node, so heuristics can read it without a Board
+        private int mNode;
+
+        Cursor at(int node) {
+            mNode = node;
+            return this;
+        }
+
+        public int dimension() {
+            return mDimension;
+        }
+
+        public int tileAt(int cell) {
+            return get(mStates, mNode, cell);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+import java.util.Arrays;
+
+/*
+ * Class OpenCounts
+ * Number of open nodes for every value of some small non-negative quantity (f or g), for the
+ * bounds that need the lowest value still open.
+ * The lowest value is kept up to date as nodes come and go: adding a lower value moves it
+ * down at once, and removing the last node of the lowest value moves it up past the empty
+ * counts lazily, on the next lowest(), the way BucketQueue finds its minimum.
+ */
+
+final class OpenCounts {
+    private int[] mCounts = new int[64];
+    private int mSize = 0;
+    private int mLowest = Integer.MAX_VALUE;
+
+    void add(int value) {
+        if (value >= mCounts.length)
+            mCounts = Arrays.copyOf(mCounts, Math.max(value + 1, mCounts.length*2));
+        mCounts[value]++;
+        mSize++;
+        if (value < mLowest)
+            mLowest = value;
+    }
+
+    void remove(int value) {
+        // value has to have been added before
+        mCounts[value]--;
+        mSize--;
+    }
+
+    int lowest() {
+        // lowest value with a count, 0 when there is none
+        if (mSize == 0)
+            return 0;
+        while (mCounts[mLowest] == 0)
+            mLowest++;
+        return mLowest;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Class ParallelIdaStar
+ * IDA* for a single board spread over a fork-join pool.
+ * The tree is expanded breadth-first from the initial board until there are a few dozen
+ * subtree roots per worker. Every f bound is then searched by one IdaStar per subtree root,
+ * all running in parallel. The next bound is the smallest f that any of them exceeded.
+ * The first bound that holds a goal gives an optimal solution, so the first worker to find
+ * one stops the others. The statistics add up those of all subtree searches, with the
+ * frontier boards counted as generated.
+ */
+
+final class ParallelIdaStar {
+    private static final int ROOTS_PER_THREAD = 32;
+    private static final int MAX_FRONTIER_DEPTH = 12;
+
+    private final Board mInitial;
+    private final Heuristic mHeuristic;
+    private final ForkJoinPool mPool;
+    private int[] mPath;
+    private SearchListener mListener = null;
+    private IdaStar[] mSearches = new IdaStar[0];
+    private long mFrontierExpanded = 0;
+    private long mFrontierGenerated = 0;
+
+    ParallelIdaStar(Board initial, Heuristic heuristic, ForkJoinPool pool) {
+        mInitial = initial;
+        mHeuristic = heuristic;
+        mPool = pool;
+    }
+
+    void solve() {
+        // (the board has to be solvable, otherwise this never returns)
+        if (mInitial.isGoal()) {
+            mPath = new int[0];
+            return;
+        }
+
+        // breadth-first frontier of subtree roots, each with the blank cells leading to it;
+        // a goal met on the way is optimal since the frontier grows one move at a time
+        List<Board> roots = new ArrayList<Board>();
+        List<int[]> prefixes = new ArrayList<int[]>();
+        roots.add(mInitial);
+        prefixes.add(new int[0]);
+        int target = mPool.getParallelism()*ROOTS_PER_THREAD;
+        for (int depth = 0; roots.size() < target && depth < MAX_FRONTIER_DEPTH; depth++) {
+            List<Board> nextRoots = new ArrayList<Board>();
+            List<int[]> nextPrefixes = new ArrayList<int[]>();
+            for (int i = 0; i < roots.size(); i++) {
+                Board root = roots.get(i);
+                int[] prefix = prefixes.get(i);
+                int previous = previousBlank(prefix);
+                mFrontierExpanded++;
+                for (Board child : root.neighbors()) {
+                    if (child.blankCell() == previous)
+                        continue;
+                    mFrontierGenerated++;
+                    int[] path = java.util.Arrays.copyOf(prefix, prefix.length + 1);
+                    path[prefix.length] = child.blankCell();
+                    if (child.isGoal()) {
+                        mPath = path;
+                        return;
+                    }
+                    nextRoots.add(child);
+                    nextPrefixes.add(path);
+                }
+            }
+            roots = nextRoots;
+            prefixes = nextPrefixes;
+        }
+
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final IdaStar[] searches = new IdaStar[roots.size()];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = new IdaStar(roots.get(i), mHeuristic);
+            searches[i].stopWhen(stop);
+        }
+        mSearches = searches;
+        final int[][] prefixArray = prefixes.toArray(new int[0][]);
+
+        int bound = mHeuristic.estimate(mHeuristic.evaluate(mInitial));
+        while (true) {
+            final int currentBound = bound;
+            List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i < searches.length; i++) {
+                final int index = i;
+                tasks.add(new Callable<Integer>() {
+                    public Integer call() {
+                        int[] prefix = prefixArray[index];
+                        try {
+                            int next = searches[index].iterate(prefix.length, currentBound, previousBlank(prefix));
+                            if (next == IdaStar.FOUND)
+                                stop.set(true);
+                            return next;
+                        } catch (CancellationException e) {
+                            return Integer.MAX_VALUE;
+                        }
+                    }
+                });
+            }
+
+            SearchStats before = stats();
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (Callable<Integer> task : tasks)
+                results.add(mPool.submit(task));
+            int next = Integer.MAX_VALUE;
+            for (int i = 0; i < results.size(); i++) {
+                int result = get(results.get(i), stop);
+                if (result == IdaStar.FOUND) {
+                    // wait for the others to stop, so their counts are final
+                    for (Future<Integer> other : results)
+                        get(other, stop);
+                    layerDone(currentBound, before);
+                    int[] below = searches[i].path();
+                    mPath = java.util.Arrays.copyOf(prefixArray[i], prefixArray[i].length + below.length);
+                    System.arraycopy(below, 0, mPath, prefixArray[i].length, below.length);
+                    return;
+                }
+                next = Math.min(next, result);
+            }
+            layerDone(currentBound, before);
+            bound = next;
+        }
+    }
+
+    int[] path() {
+        // blank cell after every move of the solution, in order
+        return mPath;
+    }
+
+    void reportTo(SearchListener listener) {
+        // tell listener about every bound searched
+        mListener = listener;
+    }
+
+    SearchStats stats() {
+        long expanded = mFrontierExpanded;
+        long generated = mFrontierGenerated;
+        long pruned = 0;
+        long deepest = 0;
+        for (IdaStar search : mSearches) {
+            SearchStats stats = search.stats();
+            expanded += stats.expanded();
+            generated += stats.generated();
+            pruned += stats.duplicates();
+            deepest = Math.max(deepest, stats.peakOpen());
+        }
+        return new SearchStats(expanded, generated, pruned, deepest, 0);
+    }
+
+    private void layerDone(int bound, SearchStats before) {
+        if (mListener == null)
+            return;
+        SearchStats after = stats();
+        mListener.layerDone(bound, after.expanded() - before.expanded(), after.generated() - before.generated());
+    }
+
+    private int previousBlank(int[] prefix) {
+        // blank cell before the last move of a prefix, -1 if there is none
+        if (prefix.length == 0)
+            return -1;
+        if (prefix.length == 1)
+            return mInitial.blankCell();
+        return prefix[prefix.length - 2];
+    }
+
+    private static int get(Future<Integer> result, AtomicBoolean stop) {
+        // wait for a worker; interrupting the waiting thread stops all workers
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("search interrupted");
+        } catch (ExecutionException e) {
+            throw new java.lang.IllegalStateException("search worker failed", e.getCause());
+        }
+    }
+}
\ No newline at end of file
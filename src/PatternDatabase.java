@@ -0,0 +1,357 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/*
+ * Class PatternDatabase
+ * Additive disjoint pattern database heuristic (e.g. the 6-6-3 partition of the 15-puzzle).
+ * The tiles are split into disjoint patterns. For every placement of a pattern's tiles, its table
+ * stores the fewest moves of those tiles needed to bring them home, so the tables can be added up
+ * and the sum is still admissible.
+ * Tables are generated by a backward breadth-first search from the goal and saved in a compact
+ * file that is memory-mapped on load, so large tables are never parsed into the heap.
+ *
+ * File layout (big-endian): magic, dimension, pattern count, then for every pattern its size and
+ * tiles, then every table as one byte per placement, in pattern order.
+ */
+
+public final class PatternDatabase implements Heuristic {
+    private static final int MAGIC = 0x50444231;
+    // the state keeps one byte per pattern, and positions are tracked as bits of a long
+    private static final int MAX_PATTERNS = 4;
+    private static final int MAX_PATTERN_SIZE = 10;
+    private static final int MAX_CELLS = 64;
+    private static final byte UNVISITED = (byte) 0xFF;
+
+    private final int mDimension;
+    private final int[][] mPatterns;
+    // pattern and slot inside the pattern of every tile, -1 for tiles no pattern covers
+    private final int[] mPatternOf;
+    private final int[] mSlotOf;
+    private final ByteBuffer[] mTables;
+
+    private PatternDatabase(int dimension, int[][] patterns, ByteBuffer[] tables) {
+        mDimension = dimension;
+        mPatterns = patterns;
+        mTables = tables;
+        int cells = dimension*dimension;
+        mPatternOf = new int[cells];
+        mSlotOf = new int[cells];
+        Arrays.fill(mPatternOf, -1);
+        for (int p = 0; p < patterns.length; p++) {
+            for (int i = 0; i < patterns[p].length; i++) {
+                mPatternOf[patterns[p][i]] = p;
+                mSlotOf[patterns[p][i]] = i;
+            }
+        }
+    }
+
+    public static PatternDatabase build(int dimension, int[][] patterns) {
+        // generate all tables in memory
+        validate(dimension, patterns);
+        ByteBuffer[] tables = new ByteBuffer[patterns.length];
+        for (int p = 0; p < patterns.length; p++)
+            tables[p] = ByteBuffer.wrap(generate(dimension, patterns[p]));
+        return new PatternDatabase(dimension, copy(patterns), tables);
+    }
+
+    public static PatternDatabase load(String path) throws IOException {
+        // read the header and memory-map every table read-only
+        int dimension;
+        int[][] patterns;
+        long offset;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new java.lang.IllegalArgumentException(path + " is not a pattern database");
+            dimension = in.readInt();
+            patterns = new int[in.readInt()][];
+            offset = 12;
+            for (int p = 0; p < patterns.length; p++) {
+                patterns[p] = new int[in.readInt()];
+                for (int i = 0; i < patterns[p].length; i++)
+                    patterns[p][i] = in.readInt();
+                offset += 4 + 4L*patterns[p].length;
+            }
+        }
+        validate(dimension, patterns);
+
+        ByteBuffer[] tables = new ByteBuffer[patterns.length];
+        try (RandomAccessFile file = new RandomAccessFile(path, "r"); FileChannel channel = file.getChannel()) {
+            for (int p = 0; p < patterns.length; p++) {
+                long size = tableSize(dimension*dimension, patterns[p].length);
+                if (offset + size > channel.size())
+                    throw new java.lang.IllegalArgumentException(path + " is truncated");
+                tables[p] = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                offset += size;
+            }
+        }
+        return new PatternDatabase(dimension, patterns, tables);
+    }
+
+    public void write(String path) throws IOException {
+        // save header and tables in the format read by load()
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(mDimension);
+            out.writeInt(mPatterns.length);
+            for (int[] pattern : mPatterns) {
+                out.writeInt(pattern.length);
+                for (int tile : pattern)
+                    out.writeInt(tile);
+            }
+            for (ByteBuffer table : mTables) {
+                ByteBuffer view = table.duplicate();
+                view.clear();
+                byte[] chunk = new byte[1 << 16];
+                while (view.hasRemaining()) {
+                    int length = Math.min(chunk.length, view.remaining());
+                    view.get(chunk, 0, length);
+                    out.write(chunk, 0, length);
+                }
+            }
+        }
+    }
+
+    public int evaluate(TileGrid grid) {
+        if (grid.dimension() != mDimension)
+            throw new java.lang.IllegalArgumentException("pattern database built for dimension " + mDimension);
+        int state = 0;
+        for (int p = 0; p < mPatterns.length; p++)
+            state |= lookup(grid, p) << (p << 3);
+        return state;
+    }
+
+    public int update(TileGrid grid, int state, int tile, int from, int to) {
+        // only the table of the pattern owning the moved tile can change
+        int p = mPatternOf[tile];
+        if (p < 0)
+            return state;
+        int shift = p << 3;
+        return (state & ~(0xFF << shift)) | (lookup(grid, p) << shift);
+    }
+
+    public int estimate(int state) {
+        return (state & 0xFF) + ((state >>> 8) & 0xFF) + ((state >>> 16) & 0xFF) + (state >>> 24);
+    }
+
+    private int lookup(TileGrid grid, int p) {
+        // table entry for the current cells of the tiles of pattern p
+        int cells = mDimension*mDimension;
+        long slots = 0L;
+        for (int cell = 0; cell < cells; cell++) {
+            int tile = grid.tileAt(cell);
+            if (tile != 0 && mPatternOf[tile] == p)
+                slots |= ((long) cell) << (6*mSlotOf[tile]);
+        }
+        int index = 0;
+        long used = 0L;
+        for (int i = 0; i < mPatterns[p].length; i++) {
+            int cell = (int) (slots >>> (6*i)) & 0x3F;
+            index = index*(cells - i) + cell - Long.bitCount(used & ((1L << cell) - 1));
+            used |= 1L << cell;
+        }
+        return mTables[p].get(index) & 0xFF;
+    }
+
+    private static byte[] generate(int dimension, int[] pattern) {
+        // backward breadth-first search from the goal over (placement of the pattern tiles, blank cell).
+        // Sliding a pattern tile costs one move, sliding any other tile is free, so every layer is
+        // closed under free moves before the next one starts. The table keeps the best over all blank cells.
+        int cells = dimension*dimension;
+        int k = pattern.length;
+        int size = (int) tableSize(cells, k);
+        if ((long) size*cells > Integer.MAX_VALUE)
+            throw new java.lang.IllegalArgumentException("pattern of " + k + " tiles is too large to generate");
+        byte[] distance = new byte[size*cells];
+        Arrays.fill(distance, UNVISITED);
+
+        int[] positions = new int[k];
+        for (int i = 0; i < k; i++)
+            positions[i] = pattern[i] - 1;
+        int start = rank(positions, cells)*cells + cells - 1;
+        distance[start] = 0;
+        IntList layer = new IntList();
+        layer.add(start);
+
+        IntList stack = new IntList();
+        int[] moved = new int[k];
+        for (int depth = 0; layer.size() > 0; depth++) {
+            IntList next = new IntList();
+            for (int l = 0; l < layer.size(); l++) {
+                if (distance[layer.get(l)] != depth)
+                    continue;
+                stack.add(layer.get(l));
+                while (stack.size() > 0) {
+                    int state = stack.pop();
+                    int index = state / cells;
+                    int blank = state % cells;
+                    long occupied = unrank(index, cells, positions);
+                    int row = blank / dimension;
+                    int col = blank % dimension;
+                    for (int direction = 0; direction < 4; direction++) {
+                        int target;
+                        if (direction == 0 && row > 0)
+                            target = blank - dimension;
+                        else if (direction == 1 && col > 0)
+                            target = blank - 1;
+                        else if (direction == 2 && row < dimension-1)
+                            target = blank + dimension;
+                        else if (direction == 3 && col < dimension-1)
+                            target = blank + 1;
+                        else
+                            continue;
+                        if ((occupied & (1L << target)) == 0) {
+                            // a tile outside the pattern slides, same depth
+                            int child = index*cells + target;
+                            if (distance[child] == UNVISITED || distance[child] == depth + 1) {
+                                distance[child] = (byte) depth;
+                                stack.add(child);
+                            }
+                        } else {
+                            // a pattern tile slides into the blank, one move deeper
+                            for (int i = 0; i < k; i++)
+                                moved[i] = positions[i] == target ? blank : positions[i];
+                            int child = rank(moved, cells)*cells + target;
+                            if (distance[child] == UNVISITED) {
+                                distance[child] = (byte) (depth + 1);
+                                next.add(child);
+                            }
+                        }
+                    }
+                }
+            }
+            layer = next;
+        }
+
+        byte[] table = new byte[size];
+        for (int index = 0; index < size; index++) {
+            int best = 0xFF;
+            for (int blank = 0; blank < cells; blank++)
+                best = Math.min(best, distance[index*cells + blank] & 0xFF);
+            table[index] = (byte) best;
+        }
+        return table;
+    }
+
+    private static int rank(int[] positions, int cells) {
+        // index of a placement among all ordered placements of positions.length tiles on cells
+        int index = 0;
+        long used = 0L;
+        for (int i = 0; i < positions.length; i++) {
+            int cell = positions[i];
+            index = index*(cells - i) + cell - Long.bitCount(used & ((1L << cell) - 1));
+            used |= 1L << cell;
+        }
+        return index;
+    }
+
+    private static long unrank(int index, int cells, int[] positions) {
+        // inverse of rank(), fills positions and returns the occupied cells as a bit mask
+        int k = positions.length;
+        for (int i = k - 1; i >= 0; i--) {
+            positions[i] = index % (cells - i);
+            index /= cells - i;
+        }
+        long used = 0L;
+        for (int i = 0; i < k; i++) {
+            int free = positions[i];
+            int cell = 0;
+            while (true) {
+                if ((used & (1L << cell)) == 0 && free-- == 0)
+                    break;
+                cell++;
+            }
+            positions[i] = cell;
+            used |= 1L << cell;
+        }
+        return used;
+    }
+
+    private static long tableSize(int cells, int k) {
+        long size = 1;
+        for (int i = 0; i < k; i++)
+            size *= cells - i;
+        return size;
+    }
+
+    private static void validate(int dimension, int[][] patterns) {
+        int cells = dimension*dimension;
+        if (dimension < 2 || cells > MAX_CELLS)
+            throw new java.lang.IllegalArgumentException("pattern databases support dimensions 2 to 8");
+        if (patterns.length == 0 || patterns.length > MAX_PATTERNS)
+            throw new java.lang.IllegalArgumentException("between 1 and " + MAX_PATTERNS + " patterns expected");
+        boolean[] seen = new boolean[cells];
+        for (int[] pattern : patterns) {
+            if (pattern.length == 0 || pattern.length > MAX_PATTERN_SIZE)
+                throw new java.lang.IllegalArgumentException("between 1 and " + MAX_PATTERN_SIZE + " tiles per pattern expected");
+            for (int tile : pattern) {
+                if (tile < 1 || tile >= cells || seen[tile])
+                    throw new java.lang.IllegalArgumentException("patterns must be disjoint sets of tiles 1 to " + (cells-1));
+                seen[tile] = true;
+            }
+        }
+    }
+
+    private static int[][] copy(int[][] patterns) {
+        int[][] copy = new int[patterns.length][];
+        for (int p = 0; p < patterns.length; p++)
+            copy[p] = patterns[p].clone();
+        return copy;
+    }
+
+    private static final class IntList {
+        // growable int stack, the search frontier gets far too large for boxed collections
+        private int[] mItems = new int[1024];
+        private int mSize = 0;
+
+        void add(int item) {
+            if (mSize == mItems.length)
+                mItems = Arrays.copyOf(mItems, mSize*2);
+            mItems[mSize++] = item;
+        }
+
+        int get(int i) {
+            return mItems[i];
+        }
+
+        int pop() {
+            return mItems[--mSize];
+        }
+
+        int size() {
+            return mSize;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // generate a pattern database file
+        // usage: java PatternDatabase <file> <dimension> <pattern> [<pattern> ...]
+        // where every pattern is a comma separated list of tiles, e.g. for the 6-6-3 partition of the 15-puzzle
+        // java -Xmx2g PatternDatabase pdb663.bin 4 1,5,6,9,10,13 7,8,11,12,14,15 2,3,4
+        if (args.length < 3) {
+            StdOut.println("usage: java PatternDatabase <file> <dimension> <pattern> [<pattern> ...]");
+            return;
+        }
+        int dimension = Integer.parseInt(args[1]);
+        int[][] patterns = new int[args.length - 2][];
+        for (int p = 0; p < patterns.length; p++) {
+            String[] tiles = args[p + 2].split(",");
+            patterns[p] = new int[tiles.length];
+            for (int i = 0; i < tiles.length; i++)
+                patterns[p][i] = Integer.parseInt(tiles[i].trim());
+        }
+        long start = System.currentTimeMillis();
+        build(dimension, patterns).write(args[0]);
+        StdOut.println("Pattern database written to " + args[0] + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
\ No newline at end of file
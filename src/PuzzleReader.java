@@ -0,0 +1,145 @@
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * Class PuzzleReader
+ * Streams boards from a file or standard input, in the input format of Solver: the dimension n
+ * followed by the n*n tiles row by row, any whitespace in between, any number of boards.
+ * Numbers are parsed straight from a reused NIO byte buffer, with no tokenizer, strings or
+ * boxing, and one blocks array is reused for every board of the same dimension.
+ * The tiles of every board have to be 0 to n*n-1, each exactly once; anything else would reach
+ * the searches as a board they cannot solve, so it is rejected with the offending byte offset.
+ * I/O errors surface as UncheckedIOException, since the reader is an Iterator.
+ */
+
+public final class PuzzleReader implements Iterator<Board>, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int END = -1;
+
+    private final ReadableByteChannel mChannel;
+    private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long mOffset = 0;
+    private boolean mEnd = false;
+    private int[][] mBlocks = new int[0][0];
+    // one bit per tile of the board being read, for the largest board (16x16)
+    private final long[] mSeen = new long[4];
+
+    public PuzzleReader(ReadableByteChannel channel) {
+        if (channel == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        mChannel = channel;
+        mBuffer.flip();
+    }
+
+    public static PuzzleReader open(String path) throws IOException {
+        // reader of a file, or of standard input when path is "-"
+        if (path.equals("-"))
+            return new PuzzleReader(Channels.newChannel(System.in));
+        return new PuzzleReader(new FileInputStream(path).getChannel());
+    }
+
+    public boolean hasNext() {
+        return skipWhitespace() != END;
+    }
+
+    public Board next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        int n = readInt();
+        if (n < 1 || n > 16)
+            throw new java.lang.IllegalArgumentException("dimension " + n + " out of range at byte " + mOffset);
+        if (mBlocks.length != n)
+            mBlocks = new int[n][n];
+        // n*n tiles in range and none repeated, so none can be missing either
+        Arrays.fill(mSeen, 0L);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int tile = readInt();
+                if (tile >= n*n)
+                    throw new java.lang.IllegalArgumentException("tile " + tile + " out of range at byte " + mOffset);
+                if ((mSeen[tile >>> 6] & (1L << tile)) != 0)
+                    throw new java.lang.IllegalArgumentException("tile " + tile + " repeated (so another one is missing) at byte " + mOffset);
+                mSeen[tile >>> 6] |= 1L << tile;
+                mBlocks[i][j] = tile;
+            }
+        }
+        return new Board(mBlocks);
+    }
+
+    public void close() throws IOException {
+        mChannel.close();
+    }
+
+    private int readInt() {
+        // next non-negative decimal number
+        if (skipWhitespace() == END)
+            throw new java.lang.IllegalArgumentException("input ends inside a board");
+        int value = 0;
+        int digits = 0;
+        while (true) {
+            int b = peek();
+            if (b < '0' || b > '9')
+                break;
+            if (value > (Integer.MAX_VALUE - 9) / 10)
+                throw new java.lang.IllegalArgumentException("number too large at byte " + mOffset);
+            value = value*10 + (b - '0');
+            digits++;
+            advance();
+        }
+        if (digits == 0 || (peek() != END && !isWhitespace(peek())))
+            throw new java.lang.IllegalArgumentException("number expected at byte " + mOffset);
+        return value;
+    }
+
+    private int skipWhitespace() {
+        // first byte that is not whitespace, END at the end of the input
+        int b = peek();
+        while (b != END && isWhitespace(b)) {
+            advance();
+            b = peek();
+        }
+        return b;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private int peek() {
+        // next byte without consuming it, END at the end of the input
+        if (!mBuffer.hasRemaining() && !fill())
+            return END;
+        return mBuffer.get(mBuffer.position()) & 0xFF;
+    }
+
+    private void advance() {
+        mBuffer.position(mBuffer.position() + 1);
+        mOffset++;
+    }
+
+    private boolean fill() {
+        if (mEnd)
+            return false;
+        try {
+            mBuffer.clear();
+            int read;
+            do
+                read = mChannel.read(mBuffer);
+            while (read == 0);
+            mBuffer.flip();
+            if (read < 0)
+                mEnd = true;
+            return read > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+/*
+ * Interface SearchListener
+ * Told about every f layer a search finishes, for tracing and graphing search effort.
+ * A* finishes a layer when it first dequeues a node of higher priority, IDA* at the end of
+ * every iteration, the bidirectional search when its lower bound on the solution rises.
+ * Calls come from the solving thread, in increasing order of f, the last one once the goal
+ * is reached; they should return quickly since the search waits for them.
+ */
+
+public interface SearchListener {
+    // the layer of priority f is done, with the nodes expanded and generated while in it
+    void layerDone(int f, long expanded, long generated);
+}
\ No newline at end of file
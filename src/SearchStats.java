@@ -0,0 +1,105 @@
+import java.lang.management.ManagementFactory;
+
+/*
+ * Class SearchStats
+ * Effort spent by one solve, as reported by Solver.stats().
+ * What a node is depends on the engine: A* and the bidirectional search count the boards they
+ * store, the IDA* engines the boards they visit on the current path. For the IDA* engines the
+ * open size is the deepest path followed and nothing is kept closed, and the duplicates are the
+ * moves skipped for undoing the previous one.
+ * Heuristic time is sampled on a fraction of the heuristic calls and scaled up; it is not
+ * measured for the parallel IDA* engine. Allocated bytes are those of the solving thread
+ * only, so the parallel IDA* workers are not counted either.
+ */
+
+public final class SearchStats {
+    private final long mExpanded;
+    private final long mGenerated;
+    private final long mDuplicates;
+    private final long mPeakOpen;
+    private final long mPeakClosed;
+    private final long mHeuristicNanos;
+    private final long mWallNanos;
+    private final long mAllocatedBytes;
+
+    SearchStats(long expanded, long generated, long duplicates, long peakOpen, long peakClosed) {
+        // counts reported by an engine, the timings are added by timed()
+        this(expanded, generated, duplicates, peakOpen, peakClosed, 0, 0, 0);
+    }
+
+    private SearchStats(long expanded, long generated, long duplicates, long peakOpen, long peakClosed,
+                        long heuristicNanos, long wallNanos, long allocatedBytes) {
+        mExpanded = expanded;
+        mGenerated = generated;
+        mDuplicates = duplicates;
+        mPeakOpen = peakOpen;
+        mPeakClosed = peakClosed;
+        mHeuristicNanos = heuristicNanos;
+        mWallNanos = wallNanos;
+        mAllocatedBytes = allocatedBytes;
+    }
+
+    SearchStats timed(long heuristicNanos, long wallNanos, long allocatedBytes) {
+        return new SearchStats(mExpanded, mGenerated, mDuplicates, mPeakOpen, mPeakClosed,
+                heuristicNanos, wallNanos, allocatedBytes);
+    }
+
+    public long expanded() {
+        // nodes whose children were generated
+        return mExpanded;
+    }
+
+    public long generated() {
+        // children generated, duplicates included
+        return mGenerated;
+    }
+
+    public long duplicates() {
+        // children dropped because their board was already reached with as few moves
+        return mDuplicates;
+    }
+
+    public long peakOpen() {
+        // largest open list, stale entries included
+        return mPeakOpen;
+    }
+
+    public long peakClosed() {
+        // most nodes stored at once
+        return mPeakClosed;
+    }
+
+    public long heuristicNanos() {
+        // estimated time spent evaluating the heuristic, -1 when not measured
+        return mHeuristicNanos;
+    }
+
+    public long wallNanos() {
+        return mWallNanos;
+    }
+
+    public long allocatedBytes() {
+        // bytes allocated by the solving thread, -1 when the runtime does not count them
+        return mAllocatedBytes;
+    }
+
+    public String toString() {
+        return "expanded=" + mExpanded + " generated=" + mGenerated + " duplicates=" + mDuplicates
+                + " peakOpen=" + mPeakOpen + " peakClosed=" + mPeakClosed
+                + " heuristicMs=" + (mHeuristicNanos < 0 ? "n/a" : Long.toString(mHeuristicNanos / 1000000))
+                + " wallMs=" + mWallNanos / 1000000
+                + " allocatedBytes=" + mAllocatedBytes;
+    }
+
+    static long threadAllocatedBytes() {
+        // bytes allocated by the current thread so far, -1 on runtimes without the counter
+        // (or with it switched off); the counter throws when it is not supported, so ask first
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        if (!counter.isThreadAllocatedMemorySupported())
+            return -1;
+        return counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,238 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Class SolutionCache
+ * Bounded LRU cache of optimal solutions, shared by any number of threads.
+ * Boards are keyed on a canonical form under the diagonal reflection of the puzzle: reflecting
+ * a board about its main diagonal and relabelling every tile with the tile whose goal cell is
+ * the reflection of its own maps the goal onto itself and solutions onto solutions, so a board
+ * and its reflection share one entry.
+ * Every board on a stored solution is a key too, since the rest of an optimal path is an
+ * optimal path from that board; all of them point into the one stored path.
+ * The cache can be written to a file and loaded back, storing each solution once.
+ */
+
+public final class SolutionCache {
+    private static final int MAGIC = 0x53434331;
+
+    // a solved board and the blank cell after every move of its solution
+    private static final class Solution {
+        private final Board mInitial;
+        private final int[] mPath;
+
+        private Solution(Board initial, int[] path) {
+            mInitial = initial;
+            mPath = path;
+        }
+    }
+
+    // the board of a key is the board after move mFrom of a solution, reflected when mReflected is set
+    private static final class Entry {
+        private final Solution mSolution;
+        private final int mFrom;
+        private final boolean mReflected;
+
+        private Entry(Solution solution, int from, boolean reflected) {
+            mSolution = solution;
+            mFrom = from;
+            mReflected = reflected;
+        }
+    }
+
+    private final int mCapacity;
+    private final Solver.Engine mEngine;
+    private final Heuristic mHeuristic;
+    private final LinkedHashMap<Board, Entry> mEntries;
+    private long mHits = 0;
+    private long mMisses = 0;
+
+    public SolutionCache(int capacity) {
+        // cache of at most capacity boards, solved with A* and the Manhattan heuristic on a miss
+        this(capacity, Solver.Engine.ASTAR, new ManhattanHeuristic());
+    }
+
+    public SolutionCache(int capacity, Solver.Engine engine, Heuristic heuristic) {
+        // same as above, solving misses with the given engine and (admissible) heuristic
+        if (engine == null || heuristic == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        if (capacity < 1)
+            throw new java.lang.IllegalArgumentException("capacity must be positive");
+        mCapacity = capacity;
+        mEngine = engine;
+        mHeuristic = heuristic;
+        // access order, so the eldest entry is the least recently used one
+        mEntries = new LinkedHashMap<Board, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Board, Entry> eldest) {
+                return size() > mCapacity;
+            }
+        };
+    }
+
+    public Solver solve(Board initial) {
+        // solver for initial, from the cache when a board with the same canonical form was solved before;
+        // the search itself runs outside the lock, so concurrent misses do not wait for each other
+        if (initial == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        if (!initial.isSolvable())
+            return new Solver(initial, mEngine, mHeuristic);
+        int[] path = lookup(initial);
+        if (path != null)
+            return new Solver(initial, path);
+        Solver solver = new Solver(initial, mEngine, mHeuristic);
+        store(initial, solver.solution());
+        return solver;
+    }
+
+    public synchronized long hits() {
+        return mHits;
+    }
+
+    public synchronized long misses() {
+        return mMisses;
+    }
+
+    public synchronized int size() {
+        // boards in the cache, every board of a stored solution counted
+        return mEntries.size();
+    }
+
+    private synchronized int[] lookup(Board board) {
+        // solution of board as blank cells after every move, null on a miss
+        Board reflected = reflect(board);
+        boolean isReflected = less(reflected, board);
+        Entry entry = mEntries.get(isReflected ? reflected : board);
+        if (entry == null) {
+            mMisses++;
+            return null;
+        }
+        mHits++;
+        int[] stored = entry.mSolution.mPath;
+        int[] path = new int[stored.length - entry.mFrom];
+        boolean flip = isReflected != entry.mReflected;
+        int n = board.dimension();
+        for (int i = 0; i < path.length; i++)
+            path[i] = flip ? reflect(stored[entry.mFrom + i], n) : stored[entry.mFrom + i];
+        return path;
+    }
+
+    private void store(Board initial, Iterable<Board> boards) {
+        List<Board> list = new ArrayList<Board>();
+        for (Board board : boards)
+            list.add(board);
+        int[] path = new int[list.size() - 1];
+        for (int i = 1; i < list.size(); i++)
+            path[i-1] = list.get(i).blankCell();
+        synchronized (this) {
+            add(new Solution(initial, path), list);
+        }
+    }
+
+    private void add(Solution solution, List<Board> boards) {
+        // key every board of the solution but the goal; boards already cached keep their entry,
+        // which is just as short since every stored solution is optimal
+        for (int from = 0; from < boards.size() - 1; from++) {
+            Board board = boards.get(from);
+            Board reflected = reflect(board);
+            boolean isReflected = less(reflected, board);
+            Board key = isReflected ? reflected : board;
+            if (!mEntries.containsKey(key))
+                mEntries.put(key, new Entry(solution, from, isReflected));
+        }
+    }
+
+    private static Board reflect(Board board) {
+        // board reflected about its main diagonal, tiles relabelled so the goal stays the goal
+        int n = board.dimension();
+        int[][] blocks = new int[n][n];
+        for (int cell = 0; cell < n*n; cell++) {
+            int tile = board.tileAt(cell);
+            blocks[cell % n][cell / n] = tile == 0 ? 0 : reflect(tile - 1, n) + 1;
+        }
+        return new Board(blocks);
+    }
+
+    private static int reflect(int cell, int n) {
+        return (cell % n)*n + cell / n;
+    }
+
+    private static boolean less(Board a, Board b) {
+        // order on boards of one dimension, row by row
+        for (int cell = 0; cell < a.dimension()*a.dimension(); cell++)
+            if (a.tileAt(cell) != b.tileAt(cell))
+                return a.tileAt(cell) < b.tileAt(cell);
+        return false;
+    }
+
+    public void write(String path) throws IOException {
+        // the distinct solutions still referenced by the cache, least recently used first:
+        // magic, count, then per solution the dimension, tiles of the initial board, length and blank cells
+        List<Solution> solutions = new ArrayList<Solution>();
+        synchronized (this) {
+            IdentityHashMap<Solution, Boolean> seen = new IdentityHashMap<Solution, Boolean>();
+            for (Entry entry : mEntries.values())
+                if (seen.put(entry.mSolution, Boolean.TRUE) == null)
+                    solutions.add(entry.mSolution);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(solutions.size());
+            for (Solution solution : solutions) {
+                int n = solution.mInitial.dimension();
+                out.writeByte(n);
+                for (int cell = 0; cell < n*n; cell++)
+                    out.writeByte(solution.mInitial.tileAt(cell));
+                out.writeInt(solution.mPath.length);
+                for (int cell : solution.mPath)
+                    out.writeByte(cell);
+            }
+        }
+    }
+
+    public static SolutionCache load(String path, int capacity, Solver.Engine engine, Heuristic heuristic) throws IOException {
+        // cache with the solutions of a file written by write(); the boards on each path are replayed,
+        // not searched, and the file is trusted to hold optimal solutions
+        SolutionCache cache = new SolutionCache(capacity, engine, heuristic);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new java.lang.IllegalArgumentException(path + " is not a solution cache");
+            int count = in.readInt();
+            for (int s = 0; s < count; s++) {
+                int n = in.readUnsignedByte();
+                int[][] blocks = new int[n][n];
+                for (int cell = 0; cell < n*n; cell++)
+                    blocks[cell / n][cell % n] = in.readUnsignedByte();
+                Board initial = new Board(blocks);
+                int[] moves = new int[in.readInt()];
+                int blank = initial.blankCell();
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = in.readUnsignedByte();
+                    if (Math.abs(moves[i] / n - blank / n) + Math.abs(moves[i] % n - blank % n) != 1)
+                        throw new java.lang.IllegalArgumentException(path + " holds an illegal move");
+                    blank = moves[i];
+                }
+                Iterator<Board> boards = new Solver(initial, moves).solution().iterator();
+                List<Board> list = new ArrayList<Board>();
+                while (boards.hasNext())
+                    list.add(boards.next());
+                if (!list.get(list.size() - 1).isGoal())
+                    throw new java.lang.IllegalArgumentException(path + " holds a path that does not reach the goal");
+                cache.add(new Solution(initial, moves), list);
+            }
+        }
+        return cache;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/*
+ * Class SolutionWriter
+ * Streams solutions to a file or standard output through a reused NIO byte buffer.
+ * TEXT is the output of Solver: the number of moves, then every board of the solution in the
+ * format of Board.toString() followed by an empty line ("No solution possible" when unsolvable).
+ * MOVES is one line per board: the number of moves and the letters of Solver.moveSequence(),
+ * or -1 when unsolvable.
+ * BINARY is one record per board: the number of moves as a big-endian int (-1 when unsolvable),
+ * the dimension and the tiles of the initial board as one byte each, then the moves packed four
+ * to a byte, first move in the lowest two bits (U=0, L=1, D=2, R=3).
+ * Numbers and tiles are written digit by digit, so nothing is formatted or allocated per board
+ * besides the boards of a TEXT solution.
+ */
+
+public final class SolutionWriter implements Closeable, Flushable {
+    public enum Format { TEXT, MOVES, BINARY }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] MINIMUM = "Minimum number of moves = ".getBytes();
+    private static final byte[] NO_SOLUTION = "No solution possible\n".getBytes();
+    private static final byte[] DIRECTIONS = "ULDR".getBytes();
+
+    private final WritableByteChannel mChannel;
+    private final Format mFormat;
+    private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] mDigits = new byte[11];
+
+    public SolutionWriter(WritableByteChannel channel, Format format) {
+        if (channel == null || format == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        mChannel = channel;
+        mFormat = format;
+    }
+
+    public static SolutionWriter open(String path, Format format) throws IOException {
+        // writer to a file, or to standard output when path is "-"
+        if (path.equals("-"))
+            return new SolutionWriter(Channels.newChannel(System.out), format);
+        return new SolutionWriter(new FileOutputStream(path).getChannel(), format);
+    }
+
+    public void write(Board initial, Solver solver) throws IOException {
+        // write the solution that solver found for initial
+        if (initial == null || solver == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        if (mFormat == Format.TEXT)
+            writeText(solver);
+        else if (mFormat == Format.MOVES)
+            writeMoves(solver);
+        else
+            writeBinary(initial, solver);
+    }
+
+    private void writeText(Solver solver) throws IOException {
+        if (!solver.isSolvable()) {
+            ensure(NO_SOLUTION.length);
+            mBuffer.put(NO_SOLUTION);
+            return;
+        }
+        ensure(MINIMUM.length + 12);
+        mBuffer.put(MINIMUM);
+        putInt(solver.moves());
+        mBuffer.put((byte) '\n');
+        for (Board board : solver.solution()) {
+            int n = board.dimension();
+            ensure(4);
+            putInt(n);
+            mBuffer.put((byte) '\n');
+            for (int i = 0; i < n; i++) {
+                // one row, each tile right-aligned in two columns and followed by a space
+                ensure(n*4 + 1);
+                for (int j = 0; j < n; j++) {
+                    int tile = board.tileAt(i*n + j);
+                    if (tile < 10)
+                        mBuffer.put((byte) ' ');
+                    putInt(tile);
+                    mBuffer.put((byte) ' ');
+                }
+                mBuffer.put((byte) '\n');
+            }
+            ensure(1);
+            mBuffer.put((byte) '\n');
+        }
+    }
+
+    private void writeMoves(Solver solver) throws IOException {
+        ensure(12);
+        putInt(solver.moves());
+        if (solver.isSolvable()) {
+            mBuffer.put((byte) ' ');
+            for (int move = 0; move < solver.moves(); move++) {
+                ensure(1);
+                mBuffer.put(DIRECTIONS[solver.direction(move)]);
+            }
+        }
+        ensure(1);
+        mBuffer.put((byte) '\n');
+    }
+
+    private void writeBinary(Board initial, Solver solver) throws IOException {
+        int n = initial.dimension();
+        ensure(5 + n*n);
+        mBuffer.putInt(solver.moves());
+        mBuffer.put((byte) n);
+        for (int cell = 0; cell < n*n; cell++)
+            mBuffer.put((byte) initial.tileAt(cell));
+        int packed = 0;
+        for (int move = 0; move < solver.moves(); move++) {
+            packed |= solver.direction(move) << (move % 4)*2;
+            if (move % 4 == 3 || move == solver.moves() - 1) {
+                ensure(1);
+                mBuffer.put((byte) packed);
+                packed = 0;
+            }
+        }
+    }
+
+    private void putInt(int value) {
+        // decimal digits of value, the caller has made room for them
+        if (value < 0) {
+            mBuffer.put((byte) '-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            mDigits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (count > 0)
+            mBuffer.put(mDigits[--count]);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        // make room for the given number of bytes, writing out what is buffered if needed
+        if (mBuffer.remaining() < bytes)
+            drain();
+    }
+
+    private void drain() throws IOException {
+        mBuffer.flip();
+        while (mBuffer.hasRemaining())
+            mChannel.write(mBuffer);
+        mBuffer.clear();
+    }
+
+    public void flush() throws IOException {
+        drain();
+    }
+
+    public void close() throws IOException {
+        // flushes what is buffered; standard output is closed along with the writer
+        try {
+            drain();
+        } finally {
+            mChannel.close();
+        }
+    }
+}
\ No newline at end of file
@@ -1,161 +1,239 @@
-import edu.princeton.cs.algs4.In;
-import edu.princeton.cs.algs4.MinPQ;
-import edu.princeton.cs.algs4.Stack;
-import edu.princeton.cs.algs4.StdOut;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class Solver {
+    // search engines a Solver can run
+    // ASTAR keeps every generated node in primitive arrays, IDA_STAR re-searches in place with memory linear in the depth,
+    // PARALLEL_IDA_STAR splits the IDA* tree over the common fork-join pool (sized by availableProcessors()-1 by default),
+    // BIDIRECTIONAL searches from both the initial board and the goal until the two searches meet
+    public enum Engine { ASTAR, IDA_STAR, PARALLEL_IDA_STAR, BIDIRECTIONAL }
+
+    // order in which A* expands nodes of equal priority (f = moves + estimate)
+    // HIGH_G prefers the node with more moves (lower estimate), which tends to reach the goal first
+    // on the last f layer; LIFO and FIFO expand the newest or the oldest node first
+    public enum TieBreak { HIGH_G, LIFO, FIFO }
+
+    // letter for each direction the blank can move in, indexed by its 2-bit code
+    private static final String DIRECTIONS = "ULDR";
+
+    // most nodes a search keeps when no budget is given, which leaves it to the heap
+    // (a search that fills the heap dies of an OutOfMemoryError; BatchSolver defaults to a budget)
+    public static final int NO_BUDGET = Integer.MAX_VALUE - 8;
+
+    // thrown when a search would need more nodes than its budget allows
+    public static final class BudgetExceededException extends java.lang.RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int mBudget;
+
+        BudgetExceededException(int budget) {
+            super("node budget of " + budget + " exceeded");
+            mBudget = budget;
+        }
+
+        public int budget() {
+            return mBudget;
+        }
+    }
+
     private final boolean mSolvable;
 //    private final int mMoves;
-    private Stack<Board> mBoards = null;
+    // the solution as the initial board and 2 bits per move, 32 moves per long (see DIRECTIONS),
+    // boards are only rebuilt while solution() is iterated
+    private Board mInitial = null;
+    private long[] mPacked = null;
+    private int mLength = 0;
+    private SearchStats mStats = new SearchStats(0, 0, 0, 0, 0);
+    private double mSuboptimality = 1.0;
     
-    private class Node implements Comparable<Node> {
-
-        private final Board mBoard;
-        private final int mPriority;
-        private final int mMoves;
-        private final int mManhattan;
-        private final Node mPredecessor;
-        
-//        public Node(Board board, int moves, Node predecessor) {
-        public Node(Board board, Node predecessor) {
-            mBoard = board;
-            if (predecessor == null)
-                mMoves = 0;
-            else
-                mMoves = predecessor.getMoves() + 1;
-//            mMoves = moves;
-            mManhattan = board.manhattan();
-            mPredecessor = predecessor;
-            mPriority = mManhattan + mMoves;
-        }
-        
-        public int getPriority() {
-            return mPriority;
+    public Solver(Board initial) {
+        // find a solution to the initial board (using the A* algorithm)
+        // solvability is decided up front by the parity check, so unsolvable boards are never searched
+        this(initial, Engine.ASTAR, new ManhattanHeuristic(), TieBreak.HIGH_G, NO_BUDGET, null, false);
+    }
+
+    public Solver(Board initial, boolean verifyWithTwin) {
+        // same as above, but with verifyWithTwin the twin board is also searched in lockstep (the
+        // original solvability test) and its verdict has to agree with the parity check
+        this(initial, Engine.ASTAR, new ManhattanHeuristic(), TieBreak.HIGH_G, NO_BUDGET, null, verifyWithTwin);
+    }
+
+    public Solver(Board initial, Engine engine) {
+        // find a solution to the initial board using the given search engine
+        this(initial, engine, new ManhattanHeuristic(), TieBreak.HIGH_G, NO_BUDGET, null, false);
+    }
+
+    public Solver(Board initial, Engine engine, Heuristic heuristic) {
+        // find a solution to the initial board using the given search engine, guided by the given
+        // heuristic (which has to be admissible for the solution to be optimal)
+        this(initial, engine, heuristic, TieBreak.HIGH_G, NO_BUDGET, null, false);
+    }
+
+    public Solver(Board initial, Engine engine, Heuristic heuristic, TieBreak tieBreak) {
+        // same as above, with the given tie-breaking between A* nodes of equal priority
+        this(initial, engine, heuristic, tieBreak, NO_BUDGET, null, false);
+    }
+
+    public Solver(Board initial, Engine engine, Heuristic heuristic, TieBreak tieBreak, int nodeBudget) {
+        // same as above, but A* and the bidirectional search keep at most nodeBudget nodes and throw a
+        // BudgetExceededException rather than grow past it (about 40 bytes per A* node on a 4x4 board);
+        // the IDA* engines need memory linear in the depth and ignore the budget
+        this(initial, engine, heuristic, tieBreak, nodeBudget, null, false);
+    }
+
+    public Solver(Board initial, Engine engine, Heuristic heuristic, TieBreak tieBreak, int nodeBudget, SearchListener listener) {
+        // same as above, telling listener (if not null) about every f layer the search finishes
+        this(initial, engine, heuristic, tieBreak, nodeBudget, listener, false);
+    }
+
+    public Solver(Board initial, Heuristic heuristic, double weight, long timeLimitMillis) {
+        // find a solution within timeLimitMillis, not necessarily a shortest one: anytime weighted A*
+        // starting from the given weight (1 to 64 in steps of 0.25) finds a first solution quickly and keeps
+        // shortening it until the time is up or it is proven optimal (see suboptimality())
+        // throws a CancellationException when not even a first solution is found in time
+        this(initial, heuristic, weight, timeLimitMillis, NO_BUDGET);
+    }
+
+    public Solver(Board initial, Heuristic heuristic, double weight, long timeLimitMillis, int nodeBudget) {
+        // same as above, keeping at most nodeBudget nodes: once they are used up the search stops
+        // with the best solution so far, or throws a BudgetExceededException if it has none
+        if (initial == null || heuristic == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        if (!(weight >= 1.0 && weight <= AnytimeSearch.MAX_WEIGHT) || timeLimitMillis < 0)
+            throw new java.lang.IllegalArgumentException("weight from 1 to " + AnytimeSearch.MAX_WEIGHT + " and a time limit expected");
+        // weights are counted in quarters, rounding one would silently search with another weight
+        if (weight*AnytimeSearch.QUARTERS != Math.rint(weight*AnytimeSearch.QUARTERS))
+            throw new java.lang.IllegalArgumentException("weight in steps of 1/" + AnytimeSearch.QUARTERS + " expected");
+        if (nodeBudget < 1)
+            throw new java.lang.IllegalArgumentException("node budget must be positive");
+
+        mSolvable = initial.isSolvable();
+        if (!mSolvable)
+            return;
+
+        TimedHeuristic timed = new TimedHeuristic(heuristic);
+        Meter meter = new Meter();
+        // a limit too long to count in nanoseconds is as good as none
+        long limitNanos = timeLimitMillis > Long.MAX_VALUE / 1000000 ? Long.MAX_VALUE : timeLimitMillis*1000000;
+        AnytimeSearch search = new AnytimeSearch(initial, timed, weight, limitNanos, nodeBudget);
+        search.solve();
+        pack(initial, search.path());
+        mSuboptimality = search.bound();
+        mStats = meter.stats(search.stats(), timed);
+    }
+
+    private Solver(Board initial, Engine engine, Heuristic heuristic, TieBreak tieBreak, int nodeBudget,
+                   SearchListener listener, boolean verifyWithTwin) {
+        // interrupting the calling thread aborts the search with a CancellationException
+        // a Solver only reads its board and heuristic, so solvers can run concurrently (see BatchSolver)
+        if (initial == null || engine == null || heuristic == null || tieBreak == null)
+            throw new java.lang.IllegalArgumentException("null argument received");
+        if (nodeBudget < 1)
+            throw new java.lang.IllegalArgumentException("node budget must be positive");
+
+        mSolvable = initial.isSolvable();
+        if (!mSolvable && !verifyWithTwin)
+            return;
+
+        // the parallel workers share the heuristic, so only the single-threaded engines time it
+        TimedHeuristic timed = engine == Engine.PARALLEL_IDA_STAR ? null : new TimedHeuristic(heuristic);
+        Meter meter = new Meter();
+        SearchStats stats = search(initial, engine, timed != null ? timed : heuristic, heuristic, tieBreak,
+                nodeBudget, listener, verifyWithTwin);
+        mStats = meter.stats(stats, timed);
+    }
+
+    private static final class Meter {
+        // wall time and bytes allocated by the calling thread from construction to stats(),
+        // the bookkeeping shared by the optimal engines and the anytime search
+        private final long mStart = System.nanoTime();
+        private final long mBytes = SearchStats.threadAllocatedBytes();
+
+        SearchStats stats(SearchStats counts, TimedHeuristic timed) {
+            // counts with the time and bytes so far, and the heuristic time when it was timed
+            long bytes = mBytes;
+            if (bytes >= 0)
+                bytes = SearchStats.threadAllocatedBytes() - bytes;
+            return counts.timed(timed != null ? timed.nanos() : -1, System.nanoTime() - mStart, bytes);
         }
-        
-//        public int getManhattan() {
-//            return mManhattan;
-//        }
-//        
-        public int getMoves() {
-            return mMoves;
+    }
+
+    private SearchStats search(Board initial, Engine engine, Heuristic heuristic, Heuristic twinHeuristic,
+                               TieBreak tieBreak, int nodeBudget, SearchListener listener, boolean verifyWithTwin) {
+        // run the engine, keep its solution and return its counts
+        if (engine == Engine.IDA_STAR) {
+            IdaStar search = new IdaStar(initial, heuristic);
+            search.reportTo(listener);
+            search.solve();
+            pack(initial, search.path());
+            return search.stats();
         }
-        
-        public Board getBoard() {
-            return mBoard;
+        if (engine == Engine.BIDIRECTIONAL) {
+            BidirectionalSearch search = new BidirectionalSearch(initial, heuristic, nodeBudget, listener);
+            search.solve();
+            pack(initial, search.path());
+            return search.stats();
         }
-        
-        public Node getPredecessor() {
-            return mPredecessor;
+        if (engine == Engine.PARALLEL_IDA_STAR) {
+            ParallelIdaStar search = new ParallelIdaStar(initial, heuristic, java.util.concurrent.ForkJoinPool.commonPool());
+            search.reportTo(listener);
+            search.solve();
+            pack(initial, search.path());
+            return search.stats();
         }
-        
-        // returns -1 if it has lower priority than that, 1 if it has higher priority than that and 0 if priorities are the same
-        public int compareTo(Node that) {
-            if (mPriority > that.getPriority())
-                return 1;
-            if (mPriority < that.getPriority())
-                return -1;
-            return 0;
+
+        // expand one node of the board and one of its twin at a time (verification mode only)
+        // until either of them dequeues a goal
+        AStar search = new AStar(initial, heuristic, tieBreak, nodeBudget, listener);
+        AStar searchTwin = verifyWithTwin ? new AStar(initial.twin(), twinHeuristic, tieBreak, nodeBudget, null) : null;
+        if (searchTwin == null)
+            search.solve();
+        else
+            while (!search.step() && !searchTwin.step()) { }
+        if (search.found())
+            pack(initial, search.path());
+        if (search.found() != mSolvable) {
+            if (verifyWithTwin)
+                throw new java.lang.IllegalStateException("twin search disagrees with the parity check");
+            // every board the parity check calls solvable reaches the goal, unless its tiles are not
+            // a permutation (a Board built from blocks with a repeated or missing tile)
+            throw new java.lang.IllegalStateException("search ran out of boards on a board the parity check calls solvable");
         }
-        
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
-            sb.append("priority  = ").append(mPriority).append("\n");
-            sb.append("moves     = ").append(mMoves).append("\n");
-            sb.append("manhattan = ").append(mManhattan).append("\n");
-            sb.append(mBoard.toString());
-            return sb.toString();
+        return search.stats();
+    }
+
+    Solver(Board initial, int[] path) {
+        // solver for a solvable board whose optimal solution is already known (see SolutionCache),
+        // given as the blank cell after every move
+        mSolvable = true;
+        pack(initial, path);
+    }
+
+    private void pack(Board initial, int[] path) {
+        // keep a solution given as the blank cell after every move
+        int n = initial.dimension();
+        mInitial = initial;
+        mLength = path.length;
+        mPacked = new long[(path.length + 31) / 32];
+        int blank = initial.blankCell();
+        for (int i = 0; i < path.length; i++) {
+            int direction;
+            if (path[i] == blank - n)
+                direction = 0;
+            else if (path[i] == blank - 1)
+                direction = 1;
+            else if (path[i] == blank + n)
+                direction = 2;
+            else
+                direction = 3;
+            mPacked[i / 32] |= (long) direction << (i % 32)*2;
+            blank = path[i];
         }
-        
     }
-    
-    public Solver(Board initial) {
-        // find a solution to the initial board (using the A* algorithm)
-        if (initial == null)
-            throw new java.lang.IllegalArgumentException("null argument received");
-        
-        boolean solvable = false;
-        boolean solvableTwin = false;
-        
-//        int moves = 0;
-//        int movesTwin = 0;
-        // create required infrastructure
-        MinPQ<Node> pq = new MinPQ<Node>();
-        MinPQ<Node> pqTwin = new MinPQ<Node>();
-        
-        // first step - insert the initial board with 0 moves and null predecessor
-//        pq.insert(new Node(initial, moves, null));
-//        pqTwin.insert(new Node(initial.twin(), movesTwin, null));
-        pq.insert(new Node(initial, null));
-        pqTwin.insert(new Node(initial.twin(), null));
-        
-        // second step - loop through the following steps:
-        Node node;
-        Node nodeTwin;
-//        int step = 0;
-        do {
-            // DEBUG
-//            System.out.println("STEP " + step);
-//            for (Node n : pq)
-//                System.out.println(n.toString());
-//            step++;
-            // - remove the node with minimum priority
-            node = pq.delMin();
-//            System.out.println("Priority = ".concat(Integer.toString(node.getPriority())));
-//            System.out.println("Moves = ".concat(Integer.toString(node.getMoves())));
-//            System.out.println(node.getBoard().toString());
-//            visitedNodes.push(node);
-            if (node.getBoard().isGoal()) {
-                // - if it is the goal board (use isGoal(), populate the Solution queue and do nothing more as the exit condition is now true
-                solvable = true;
-                // initialize the mBoards member
-                mBoards = new Stack<Board>();
-                mBoards.push(node.getBoard());
-                while (node.getPredecessor() != null) {
-                    node = node.getPredecessor();
-                    mBoards.push(node.getBoard());
-                }
-            } else {
-                // - increment the number of moves
-//                moves++;
-                // - calculate the neighbors
-                for (Board board : node.getBoard().neighbors()) {
-                    // - insert the neighbors (as nodes) in the PQ
-                    if (node.getPredecessor() != null)
-                        if (board.equals(node.getPredecessor().getBoard()))
-                            continue;
-                    // if the neighbor is equal to any other board already in the Queue, part of the solution, skip it to avoid solution loops
-//                    boolean found = false;
-//                    for (Node visitedNode : visitedNodes)
-//                        if (board.equals(visitedNode.getBoard())) {
-//                            found = true;
-//                            break;
-//                        }
-//                    if (!found) 
-                    pq.insert(new Node(board, node));
-                }
-            }
-            // - repeat until the dequeued move represents the goal board
-            // do the same for the Twin board
-            nodeTwin = pqTwin.delMin();
-            if (nodeTwin.getBoard().isGoal())
-                // - if it is the goal board (use isGoal(), populate the Solution queue and do nothing more as the exit condition is now true
-                solvableTwin = true;
-            else {
-                // - increment the number of moves
-//                movesTwin++;
-                // - calculate the neighbors
-                for (Board boardTwin : nodeTwin.getBoard().neighbors()) {
-                    // - insert the neighbors (as nodes) in the PQ
-                    if (nodeTwin.getPredecessor() != null)
-                        if (boardTwin.equals(nodeTwin.getPredecessor().getBoard()))
-                            continue;
-                    pqTwin.insert(new Node(boardTwin, nodeTwin));
-                }
-            }
-            // - repeat until the dequeued move represents the goal board
-        } while (!solvable && !solvableTwin);
-        mSolvable = solvable;
+
+    int direction(int move) {
+        // 2-bit code of the direction the blank moves in on the given move (see DIRECTIONS)
+        return (int) (mPacked[move / 32] >>> (move % 32)*2) & 3;
     }
 
     public boolean isSolvable() {
@@ -165,39 +243,95 @@ public class Solver {
 
     public int moves() {
         // min number of moves to solve initial board; -1 if unsolvable
+        // (for the anytime search, the moves of the best solution found)
     	if (!mSolvable)
     		return -1;
-    	if (mBoards != null)
-    		return mBoards.size() == 0 ? 0 : mBoards.size()-1;
-    	return 0;
+    	return mLength;
+    }
+
+    public double suboptimality() {
+        // the solution is at most this many times longer than a shortest one,
+        // 1 unless the anytime search ran out of time
+        return mSuboptimality;
+    }
+
+    public long expansions() {
+        // nodes expanded by the search (the twin search excluded), same as stats().expanded()
+        return mStats.expanded();
+    }
+
+    public SearchStats stats() {
+        // effort spent on the search, all zero when nothing was searched
+        // (unsolvable board, or solution taken from a SolutionCache)
+        return mStats;
     }
 
     public Iterable<Board> solution() {
         // sequence of boards in a shortest solution; null if unsolvable
-        return mBoards;
-    }
-
-    public static void main(String[] args) {
-        // solve a slider puzzle (given below)
-        // create initial board from file
-        In in = new In(args[0]);
-        int n = in.readInt();
-        int[][] blocks = new int[n][n];
-        for (int i = 0; i < n; i++)
-            for (int j = 0; j < n; j++)
-                blocks[i][j] = in.readInt();
-        Board initial = new Board(blocks);
-
-        // solve the puzzle
-        Solver solver = new Solver(initial);
-
-        // print solution to standard output
-        if (!solver.isSolvable())
-            StdOut.println("No solution possible");
-        else {
-            StdOut.println("Minimum number of moves = " + solver.moves());
-            for (Board board : solver.solution())
-                StdOut.println(board);
+        // every iteration replays the moves from the initial board, one board at a time
+        if (mPacked == null)
+            return null;
+        return new Iterable<Board>() {
+            public Iterator<Board> iterator() {
+                return new Iterator<Board>() {
+                    private Board mBoard = mInitial;
+                    private int mMove = 0;
+
+                    public boolean hasNext() {
+                        return mMove <= mLength;
+                    }
+
+                    public Board next() {
+                        if (mMove > mLength)
+                            throw new NoSuchElementException();
+                        Board board = mBoard;
+                        if (mMove < mLength) {
+                            int n = board.dimension();
+                            int blank = board.blankCell();
+                            int direction = direction(mMove);
+                            int cell = direction == 0 ? blank - n : direction == 1 ? blank - 1
+                                     : direction == 2 ? blank + n : blank + 1;
+                            mBoard = board.slide(cell);
+                        }
+                        mMove++;
+                        return board;
+                    }
+                };
+            }
+        };
+    }
+
+    public String moveSequence() {
+        // the moves of a shortest solution as the directions the blank moves in, one letter each
+        // (U, L, D or R); null if unsolvable
+        if (mPacked == null)
+            return null;
+        StringBuilder moves = new StringBuilder(mLength);
+        for (int move = 0; move < mLength; move++)
+            moves.append(DIRECTIONS.charAt(direction(move)));
+        return moves.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        // solve every slider puzzle of a file ("-" for standard input) and print the solutions
+        // to standard output, as boards or with -moves / -binary in the other SolutionWriter formats
+        // usage: java Solver <file> [-moves | -binary]
+        SolutionWriter.Format format = SolutionWriter.Format.TEXT;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-moves"))
+                format = SolutionWriter.Format.MOVES;
+            else if (args[i].equals("-binary"))
+                format = SolutionWriter.Format.BINARY;
+            else
+                throw new java.lang.IllegalArgumentException("unknown option " + args[i]);
+        }
+
+        try (PuzzleReader in = PuzzleReader.open(args[0]);
+             SolutionWriter out = SolutionWriter.open("-", format)) {
+            while (in.hasNext()) {
+                Board initial = in.next();
+                out.write(initial, new Solver(initial));
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+/*
+ * Interface TileGrid
+ * Read-only view of the tiles of a board, shared by the immutable Board and by the
+ * mutable boards the search engines work on, so heuristics can evaluate either one.
+ */
+
+public interface TileGrid {
+    // board dimension n
+    int dimension();
+
+    // tile stored in the given cell (row-major), 0 for the blank
+    int tileAt(int cell);
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Class WalkingDistanceHeuristic
+ * Walking distance: tiles are only told apart by their goal row, and the fewest vertical
+ * moves needed to bring every tile to its goal row is looked up in a table built by
+ * breadth-first search over these row configurations. The same table, read with columns
+ * instead of rows, gives the horizontal moves, and both parts add up admissibly.
+ * The state keeps the vertical configuration index in its high 16 bits and the horizontal
+ * one in its low 16 bits. A slide moves one tile between adjacent rows (or columns), which
+ * is a single step through a precomputed link table.
+ */
+
+public final class WalkingDistanceHeuristic implements Heuristic {
+    // 4x4 has 24964 configurations; 5x5 would not fit the 16-bit halves of the state
+    private static final int MAX_DIMENSION = 4;
+
+    private final int mDimension;
+    // walking distance of every configuration
+    private final byte[] mDistance;
+    // mLinks[(index*2 + direction)*n + group] = configuration after a tile of the given goal group
+    // comes into the blank line from the line above (direction 0) or below (direction 1), -1 if impossible
+    private final int[] mLinks;
+    private final HashMap<Long, Integer> mIndex = new HashMap<Long, Integer>();
+
+    public WalkingDistanceHeuristic(int dimension) {
+        // build the configuration table by breadth-first search from the goal
+        if (dimension < 2 || dimension > MAX_DIMENSION)
+            throw new java.lang.IllegalArgumentException("walking distance supports dimensions 2 to " + MAX_DIMENSION);
+        mDimension = dimension;
+        int n = dimension;
+
+        int[][] counts = new int[n][n];
+        for (int line = 0; line < n; line++)
+            counts[line][line] = line == n-1 ? n-1 : n;
+        long[] codes = new long[1024];
+        byte[] distance = new byte[1024];
+        int[] links = new int[1024*2*n];
+        codes[0] = encode(counts, n-1);
+        mIndex.put(codes[0], 0);
+        int size = 1;
+
+        for (int index = 0; index < size; index++) {
+            int blank = decode(codes[index], counts);
+            for (int direction = 0; direction < 2; direction++) {
+                int neighbor = direction == 0 ? blank - 1 : blank + 1;
+                for (int group = 0; group < n; group++) {
+                    int link = -1;
+                    if (neighbor >= 0 && neighbor < n && counts[neighbor][group] > 0) {
+                        counts[neighbor][group]--;
+                        counts[blank][group]++;
+                        long code = encode(counts, neighbor);
+                        counts[blank][group]--;
+                        counts[neighbor][group]++;
+                        Integer known = mIndex.get(code);
+                        if (known == null) {
+                            if (size == codes.length) {
+                                codes = Arrays.copyOf(codes, size*2);
+                                distance = Arrays.copyOf(distance, size*2);
+                                links = Arrays.copyOf(links, size*2*2*n);
+                            }
+                            codes[size] = code;
+                            distance[size] = (byte) (distance[index] + 1);
+                            known = size++;
+                            mIndex.put(code, known);
+                        }
+                        link = known;
+                    }
+                    links[(index*2 + direction)*n + group] = link;
+                }
+            }
+        }
+        mDistance = Arrays.copyOf(distance, size);
+        mLinks = Arrays.copyOf(links, size*2*n);
+    }
+
+    public int evaluate(TileGrid grid) {
+        if (grid.dimension() != mDimension)
+            throw new java.lang.IllegalArgumentException("walking distance built for dimension " + mDimension);
+        int n = mDimension;
+        int[][] rows = new int[n][n];
+        int[][] cols = new int[n][n];
+        int blank = 0;
+        for (int cell = 0; cell < n*n; cell++) {
+            int tile = grid.tileAt(cell);
+            if (tile == 0) {
+                blank = cell;
+                continue;
+            }
+            rows[cell / n][(tile-1) / n]++;
+            cols[cell % n][(tile-1) % n]++;
+        }
+        int vertical = mIndex.get(encode(rows, blank / n));
+        int horizontal = mIndex.get(encode(cols, blank % n));
+        return (vertical << 16) | horizontal;
+    }
+
+    public int update(TileGrid grid, int state, int tile, int from, int to) {
+        int n = mDimension;
+        if (from / n != to / n) {
+            // the tile changed rows: the blank line of the vertical configuration moved
+            int vertical = mLinks[((state >>> 16)*2 + (from < to ? 0 : 1))*n + (tile-1) / n];
+            return (vertical << 16) | (state & 0xFFFF);
+        }
+        int horizontal = mLinks[((state & 0xFFFF)*2 + (from < to ? 0 : 1))*n + (tile-1) % n];
+        return (state & 0xFFFF0000) | horizontal;
+    }
+
+    public int estimate(int state) {
+        return mDistance[state >>> 16] + mDistance[state & 0xFFFF];
+    }
+
+    private long encode(int[][] counts, int blank) {
+        // every count is at most n, so the configuration is a base n+1 number
+        long code = blank;
+        for (int line = 0; line < mDimension; line++)
+            for (int group = 0; group < mDimension; group++)
+                code = code*(mDimension + 1) + counts[line][group];
+        return code;
+    }
+
+    private int decode(long code, int[][] counts) {
+        // inverse of encode(), fills counts and returns the blank line
+        for (int line = mDimension - 1; line >= 0; line--) {
+            for (int group = mDimension - 1; group >= 0; group--) {
+                counts[line][group] = (int) (code % (mDimension + 1));
+                code /= mDimension + 1;
+            }
+        }
+        return (int) code;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Class BoardTest
+ * Board.isSolvable() takes the permutation parity from its cycles; it has to agree with the
+ * textbook rule on inversions and the blank row, for random permutations of several sizes.
+ */
+
+class BoardTest {
+    private static final long SEED = 2016;
+
+    @Test
+    void parityMatchesInversionCount() {
+        Random random = new Random(SEED);
+        for (int n = 2; n <= 5; n++) {
+            for (int trial = 0; trial < 500; trial++) {
+                int[] tiles = shuffle(n*n, random);
+                Board board = TestBoards.fromTiles(n, tiles);
+                assertEquals(solvableByInversions(n, tiles), board.isSolvable(), board.toString());
+                // swapping two tiles flips the parity
+                assertNotEquals(board.isSolvable(), board.twin().isSolvable(), board.toString());
+            }
+        }
+    }
+
+    private static boolean solvableByInversions(int n, int[] tiles) {
+        // odd n: even inversions; even n: inversions plus the blank row (from the top) odd
+        int inversions = 0;
+        int blankRow = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == 0) {
+                blankRow = i / n;
+                continue;
+            }
+            for (int j = i + 1; j < tiles.length; j++)
+                if (tiles[j] != 0 && tiles[j] < tiles[i])
+                    inversions++;
+        }
+        if (n % 2 == 1)
+            return inversions % 2 == 0;
+        return (inversions + blankRow) % 2 == 1;
+    }
+
+    private static int[] shuffle(int cells, Random random) {
+        int[] tiles = new int[cells];
+        for (int i = 0; i < cells; i++)
+            tiles[i] = i;
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tile = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = tile;
+        }
+        return tiles;
+    }
+}
\ No newline at end of file
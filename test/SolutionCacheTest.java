@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Class SolutionCacheTest
+ * A board and its diagonal reflection share a cache entry, and so does every board on a stored
+ * solution; what comes back for them has to be a legal, optimal solution of the board asked
+ * for, also after the cache went through a file. The reflection is rebuilt here rather than
+ * taken from the cache, so both would have to get it wrong the same way to pass.
+ */
+
+class SolutionCacheTest {
+    private static final long SEED = 2016;
+
+    @TempDir
+    File mDirectory;
+
+    @Test
+    void reflectedBoardsHitTheCache() {
+        Random random = new Random(SEED);
+        for (int n = 3; n <= 4; n++) {
+            SolutionCache cache = new SolutionCache(1000);
+            Board board = TestBoards.scramble(n, n == 3 ? 60 : 30, random);
+            int optimal = cache.solve(board).moves();
+            assertEquals(0, cache.hits());
+
+            Board reflected = reflect(board);
+            Solver solver = cache.solve(reflected);
+            assertEquals(1, cache.hits(), "reflection of\n" + board);
+            assertEquals(optimal, solver.moves());
+            TestBoards.assertSolves(reflected, solver, "reflection of\n" + board);
+        }
+    }
+
+    @Test
+    void boardsOnAStoredSolutionHitTheCache() {
+        SolutionCache cache = new SolutionCache(1000);
+        Board board = TestBoards.scramble(4, 30, new Random(SEED));
+        Solver solver = cache.solve(board);
+        int move = 0;
+        for (Board on : solver.solution()) {
+            if (on.isGoal())
+                break;
+            for (Board asked : new Board[] { on, reflect(on) }) {
+                long hits = cache.hits();
+                Solver rest = cache.solve(asked);
+                assertEquals(hits + 1, cache.hits(), "board " + move + " of the solution of\n" + board);
+                // the rest of an optimal solution is optimal
+                assertEquals(solver.moves() - move, rest.moves());
+                TestBoards.assertSolves(asked, rest, "board " + move + " of the solution of\n" + board);
+            }
+            move++;
+        }
+    }
+
+    @Test
+    void reflectedBoardsHitALoadedCache() throws IOException {
+        SolutionCache cache = new SolutionCache(1000);
+        Board board = TestBoards.scramble(3, 60, new Random(SEED));
+        int optimal = cache.solve(board).moves();
+        String path = new File(mDirectory, "cache.bin").getPath();
+        cache.write(path);
+
+        SolutionCache loaded = SolutionCache.load(path, 1000, Solver.Engine.ASTAR, new ManhattanHeuristic());
+        Board reflected = reflect(board);
+        Solver solver = loaded.solve(reflected);
+        assertEquals(1, loaded.hits());
+        assertEquals(optimal, solver.moves());
+        TestBoards.assertSolves(reflected, solver, "reflection of\n" + board);
+    }
+
+    private static Board reflect(Board board) {
+        // mirror about the main diagonal, then relabel every tile with the tile whose goal cell
+        // is the mirror of its own, which keeps the goal the goal
+        int n = board.dimension();
+        int[] tiles = new int[n*n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int tile = board.tileAt(row*n + col);
+                int goal = tile - 1;
+                tiles[col*n + row] = tile == 0 ? 0 : (goal % n)*n + goal / n + 1;
+            }
+        }
+        return TestBoards.fromTiles(n, tiles);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Class SolverTest
+ * Every engine with every heuristic has to find a solution of the same, optimal length on a
+ * seeded corpus of 3x3 and 4x4 boards, and every solution has to be a legal sequence of slides
+ * from the initial board to the goal. The anytime search has to stay within the suboptimality
+ * bound it reports, and reach the optimum when it is given the time.
+ */
+
+class SolverTest {
+    private static final long SEED = 2016;
+
+    @Test
+    void everyEngineAndHeuristicFindsTheOptimalLength() {
+        // 3x3 boards scrambled past any depth, enough of them that some have a first meeting of the
+        // bidirectional search off the optimum; 4x4 boards kept shallow enough for every engine
+        check(3, 40, 80);
+        check(4, 6, 30);
+    }
+
+    @Test
+    void unsolvableBoardsAreNotSearched() {
+        Random random = new Random(SEED);
+        for (int n = 2; n <= 4; n++) {
+            Board board = TestBoards.scramble(n, 40, random).twin();
+            for (Solver.Engine engine : Solver.Engine.values()) {
+                Solver solver = new Solver(board, engine);
+                assertFalse(solver.isSolvable(), engine + " on\n" + board);
+                assertEquals(-1, solver.moves());
+                assertNull(solver.solution());
+            }
+            assertFalse(new Solver(board, true).isSolvable(), "twin verification on\n" + board);
+        }
+    }
+
+    @Test
+    void anytimeSolutionsStayWithinTheirBound() {
+        // node budgets stop the anytime search at the same point on every run, unlike time limits
+        Random random = new Random(SEED);
+        for (int b = 0; b < 4; b++) {
+            Board board = TestBoards.scramble(4, 36, random);
+            int optimal = new Solver(board, Solver.Engine.IDA_STAR).moves();
+            for (int budget : new int[] { 2000, 20000, Solver.NO_BUDGET }) {
+                Solver solver;
+                try {
+                    solver = new Solver(board, new ManhattanHeuristic(), 3.0, Long.MAX_VALUE, budget);
+                } catch (Solver.BudgetExceededException e) {
+                    // no first solution within the budget, nothing to check
+                    continue;
+                }
+                String name = "budget " + budget + " on\n" + board;
+                TestBoards.assertSolves(board, solver, name);
+                assertTrue(solver.moves() >= optimal, name);
+                assertTrue(solver.moves() <= solver.suboptimality()*optimal + 1e-9, name);
+                if (budget == Solver.NO_BUDGET) {
+                    assertEquals(optimal, solver.moves(), name);
+                    assertEquals(1.0, solver.suboptimality(), name);
+                }
+            }
+        }
+    }
+
+    @Test
+    void anytimeWeightsMustBeQuarters() {
+        Board board = TestBoards.goal(3);
+        for (double weight : new double[] { 0.5, 1.1, Double.NaN, AnytimeSearch.MAX_WEIGHT + 1 }) {
+            try {
+                new Solver(board, new ManhattanHeuristic(), weight, 10);
+                throw new AssertionError("weight " + weight + " accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        assertEquals(0, new Solver(board, new ManhattanHeuristic(), 1.25, 10).moves());
+    }
+
+    private static void check(int n, int count, int scramble) {
+        Heuristic[] heuristics = {
+            new ManhattanHeuristic(),
+            new LinearConflictHeuristic(),
+            new WalkingDistanceHeuristic(n),
+            PatternDatabase.build(n, partition(n))
+        };
+        Random random = new Random(SEED + n);
+        for (int b = 0; b < count; b++) {
+            Board board = TestBoards.scramble(n, scramble, random);
+            int optimal = new Solver(board).moves();
+            Solver verified = new Solver(board, true);
+            assertEquals(optimal, verified.moves(), "twin verification on\n" + board);
+            for (Solver.Engine engine : Solver.Engine.values()) {
+                for (Heuristic heuristic : heuristics) {
+                    String name = engine + " with " + heuristic.getClass().getSimpleName() + " on\n" + board;
+                    Solver solver = new Solver(board, engine, heuristic);
+                    assertEquals(optimal, solver.moves(), name);
+                    TestBoards.assertSolves(board, solver, name);
+                }
+            }
+        }
+    }
+
+    private static int[][] partition(int n) {
+        // disjoint patterns small enough to build in a moment
+        if (n == 3)
+            return new int[][] { { 1, 2, 3, 4 }, { 5, 6, 7, 8 } };
+        return new int[][] { { 1, 2, 3, 4, 5 }, { 6, 7, 8, 9, 10 }, { 11, 12, 13, 14, 15 } };
+    }
+}
\ No newline at end of file
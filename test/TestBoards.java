@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+/*
+ * Class TestBoards
+ * Boards and checks shared by the tests: seeded scrambles of the goal, so every run sees the
+ * same boards, and the check that a solution is a legal sequence of slides to the goal.
+ */
+
+final class TestBoards {
+    private TestBoards() { }
+
+    static Board goal(int n) {
+        int[][] blocks = new int[n][n];
+        for (int cell = 0; cell < n*n; cell++)
+            blocks[cell / n][cell % n] = (cell + 1) % (n*n);
+        return new Board(blocks);
+    }
+
+    static Board scramble(int n, int moves, Random random) {
+        // the goal after the given number of random slides, none undoing the one before
+        Board board = goal(n);
+        Board previous = null;
+        for (int move = 0; move < moves; move++) {
+            Board next;
+            do {
+                next = pick(board.neighbors(), random);
+            } while (next.equals(previous));
+            previous = board;
+            board = next;
+        }
+        return board;
+    }
+
+    static Board fromTiles(int n, int[] tiles) {
+        int[][] blocks = new int[n][n];
+        for (int cell = 0; cell < n*n; cell++)
+            blocks[cell / n][cell % n] = tiles[cell];
+        return new Board(blocks);
+    }
+
+    static void assertSolves(Board initial, Solver solver, String name) {
+        // solution() starts at initial, slides one tile at a time and ends at the goal in moves() slides
+        assertNotNull(solver.solution(), name);
+        Board previous = null;
+        int boards = 0;
+        for (Board board : solver.solution()) {
+            if (previous == null)
+                assertEquals(initial, board, name);
+            else
+                assertTrue(contains(previous.neighbors(), board), "illegal slide in the solution of " + name);
+            previous = board;
+            boards++;
+        }
+        assertTrue(previous.isGoal(), "solution does not end at the goal for " + name);
+        assertEquals(solver.moves() + 1, boards, name);
+    }
+
+    private static Board pick(Iterable<Board> boards, Random random) {
+        int count = 0;
+        for (Board board : boards)
+            count++;
+        int index = random.nextInt(count);
+        for (Board board : boards)
+            if (index-- == 0)
+                return board;
+        throw new java.lang.IllegalStateException("no neighbor");
+    }
+
+    private static boolean contains(Iterable<Board> boards, Board board) {
+        for (Board other : boards)
+            if (other.equals(board))
+                return true;
+        return false;
+    }
+}
\ No newline at end of file